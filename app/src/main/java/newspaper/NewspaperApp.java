@@ -0,0 +1,7062 @@
+package newspaper;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumnModel;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class NewspaperApp extends JFrame {
+
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final NewsData model;
+    private final AsyncNewsData async;
+    private final int feedPageSize = AppConfig.getInt("newsdata.feed.pageSize", 200);
+    private final Path snapshotFile = FeedSnapshot.fileFromConfig();
+    private final Set<CompletableFuture<?>> pendingTasks = new LinkedHashSet<>();
+    private CompletableFuture<?> feedLoad;
+    private ChangeCursor changeCursor;
+    private CompletableFuture<List<FeedChange>> changePoll;
+    private Timer changeTimer;
+    private TombstonePurger purger;
+    private PublishScheduler publisher;
+    private Timer undoTimer;
+    private Runnable pendingUndo;
+    private JButton btnUndo;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    private JButton btnCancel;
+    private JTable newsTable;
+    private NewsTableModel tableModel;
+    private User currentUser = null;
+    private JButton btnLoginLogout;
+    private JButton btnAddNews;
+    private JTextField searchField;
+    private JComboBox<User> authorFilter;
+    private JButton btnMyArticles;
+    private TitledBorder feedBorder;
+    /** Whose articles the table lists; null for the whole feed. */
+    private User feedAuthor;
+    private boolean updatingAuthors;
+
+    private static final User ALL_AUTHORS = new User(0, "All authors");
+
+    public static class User {
+        private int id;
+        private String username;
+
+        public User(int id, String username) {
+            this.id = id;
+            this.username = username;
+        }
+
+        public int getId() { return id; }
+        public String getUsername() { return username; }
+
+        @Override
+        public String toString() { return username; }
+    }
+
+    public static class NewsRow {
+        private final int newsId;
+        private final String title;
+        private final Timestamp createdAt;
+        private final int authorId;
+        private final String authorName;
+
+        public NewsRow(int newsId, String title, Timestamp createdAt, int authorId, String authorName) {
+            this.newsId = newsId;
+            this.title = title;
+            this.createdAt = createdAt;
+            this.authorId = authorId;
+            this.authorName = authorName;
+        }
+
+        public int getNewsId() { return newsId; }
+        public String getTitle() { return title; }
+        public Timestamp getCreatedAt() { return createdAt; }
+        public int getAuthorId() { return authorId; }
+        public String getAuthorName() { return authorName; }
+
+        public FeedCursor toCursor() { return new FeedCursor(createdAt, newsId); }
+
+        public NewsRow withTitle(String newTitle) { return new NewsRow(newsId, newTitle, createdAt, authorId, authorName); }
+    }
+
+    /** One article with its body and the row version an edit of it must be based on. */
+    public static class Article {
+        private final NewsRow row;
+        private final String body;
+        private final int version;
+
+        public Article(NewsRow row, String body, int version) {
+            this.row = row;
+            this.body = body;
+            this.version = version;
+        }
+
+        public NewsRow getRow() { return row; }
+        public String getBody() { return body; }
+        public int getVersion() { return version; }
+    }
+
+    /** One saved version in an article's history; its body is rebuilt on demand. */
+    public static class Revision {
+        private final int version;
+        private final String title;
+        private final Timestamp savedAt;
+        private final int bodyLength;
+        private final boolean checkpoint;
+        private final int storedBytes;
+
+        public Revision(int version, String title, Timestamp savedAt, int bodyLength, boolean checkpoint, int storedBytes) {
+            this.version = version;
+            this.title = title;
+            this.savedAt = savedAt;
+            this.bodyLength = bodyLength;
+            this.checkpoint = checkpoint;
+            this.storedBytes = storedBytes;
+        }
+
+        public int getVersion() { return version; }
+        public String getTitle() { return title; }
+        /** When this version was saved, or null for the version history started from. */
+        public Timestamp getSavedAt() { return savedAt; }
+        public int getBodyLength() { return bodyLength; }
+        public boolean isCheckpoint() { return checkpoint; }
+        public int getStoredBytes() { return storedBytes; }
+    }
+
+    /**
+     * Outcome of an edit. {@code current} is the article as stored afterwards: the saved
+     * edit for UPDATED, the other writer's version for CONFLICT, and null for NOT_FOUND.
+     */
+    public static class ModifyResult {
+        enum Status { UPDATED, CONFLICT, NOT_FOUND }
+
+        final Status status;
+        final Article current;
+
+        public ModifyResult(Status status, Article current) {
+            this.status = status;
+            this.current = current;
+        }
+    }
+
+    /** Position in the feed: the (Created_at, News_id) of the last row already seen. */
+    public static class FeedCursor {
+        private final Timestamp createdAt;
+        private final int newsId;
+
+        public FeedCursor(Timestamp createdAt, int newsId) {
+            this.createdAt = createdAt;
+            this.newsId = newsId;
+        }
+
+        public Timestamp getCreatedAt() { return createdAt; }
+        public int getNewsId() { return newsId; }
+    }
+
+    /** The newest feed page together with the change-log position it is current as of. */
+    public static class FeedHead {
+        final long changeSeq;
+        final List<NewsRow> rows;
+
+        public FeedHead(long changeSeq, List<NewsRow> rows) {
+            this.changeSeq = changeSeq;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * One change-log entry. For ADD and MODIFY, {@code row} is the article as it is now,
+     * or null if it has been deleted since; {@code authorId} and {@code authorName} are
+     * set for DELETE_USER.
+     */
+    public static class FeedChange {
+        enum Op { ADD, MODIFY, DELETE, DELETE_USER, RELOAD }
+
+        final long seq;
+        final Op op;
+        final int newsId;
+        final int authorId;
+        final String authorName;
+        final NewsRow row;
+
+        public FeedChange(long seq, Op op, int newsId, int authorId, String authorName, NewsRow row) {
+            this.seq = seq;
+            this.op = op;
+            this.newsId = newsId;
+            this.authorId = authorId;
+            this.authorName = authorName;
+            this.row = row;
+        }
+    }
+
+    public NewspaperApp() {
+        this.model = new NewsData();
+        this.async = new AsyncNewsData(model,
+                AppConfig.getInt("newsdata.async.threads", 4),
+                AppConfig.getInt("newsdata.async.queueCapacity", 64));
+        setTitle("News Management System");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        setLayout(new BorderLayout(15, 15));
+        setSize(1100, 700);
+
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+
+        }
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (changeTimer != null) changeTimer.stop();
+                if (purger != null) purger.close();
+                if (publisher != null) publisher.close();
+                saveSnapshot();
+                async.close();
+                model.close();
+            }
+        });
+
+        initializeUI();
+        FeedSnapshot snapshot = FeedSnapshot.load(snapshotFile, model.describe());
+        if (snapshot != null) {
+            tableModel.replaceAll(snapshot.rows, snapshot.hasMore);
+        }
+        connect(snapshot);
+
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private void initializeUI() {
+        JMenuBar menuBar = new JMenuBar();
+        JMenu fileMenu = new JMenu("File");
+        JMenuItem exportItem = new JMenuItem("Export Archive...");
+        exportItem.addActionListener(e -> exportArchive());
+        fileMenu.add(exportItem);
+        menuBar.add(fileMenu);
+        setJMenuBar(menuBar);
+
+        JPanel controlPanel = new JPanel();
+        controlPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 30, 15));
+
+        JButton btnManageUsers = new JButton("Manage Users (Admin)");
+        btnAddNews = new JButton("Add News Article");
+        btnLoginLogout = new JButton("Login");
+
+        Font buttonFont = new Font("Arial", Font.BOLD, 15);
+
+        btnManageUsers.setFont(buttonFont);
+        btnAddNews.setFont(buttonFont);
+        btnLoginLogout.setFont(buttonFont);
+
+        btnManageUsers.setBackground(new Color(240, 240, 240));
+        btnAddNews.setBackground(new Color(150, 200, 255));
+
+        controlPanel.add(btnManageUsers);
+        controlPanel.add(btnAddNews);
+        controlPanel.add(btnLoginLogout);
+
+        searchField = new JTextField(18);
+        searchField.setFont(new Font("Arial", Font.PLAIN, 15));
+        JButton btnSearch = new JButton("Search");
+        JButton btnClearSearch = new JButton("Clear");
+        btnSearch.setFont(buttonFont);
+        btnClearSearch.setFont(buttonFont);
+        searchField.addActionListener(e -> runSearch());
+        btnSearch.addActionListener(e -> runSearch());
+        btnClearSearch.addActionListener(e -> {
+            searchField.setText("");
+            loadNewsData();
+        });
+        controlPanel.add(searchField);
+        controlPanel.add(btnSearch);
+        controlPanel.add(btnClearSearch);
+
+        authorFilter = new JComboBox<>(new DefaultComboBoxModel<>(new User[] { ALL_AUTHORS }));
+        authorFilter.setFont(new Font("Arial", Font.PLAIN, 15));
+        authorFilter.addActionListener(e -> {
+            if (updatingAuthors) return;
+            User selected = (User) authorFilter.getSelectedItem();
+            showAuthor(selected == null || selected == ALL_AUTHORS ? null : selected);
+        });
+        authorFilter.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                refreshAuthorList();
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+        btnMyArticles = new JButton("My articles");
+        btnMyArticles.setFont(buttonFont);
+        btnMyArticles.addActionListener(e -> showAuthor(currentUser));
+        controlPanel.add(authorFilter);
+        controlPanel.add(btnMyArticles);
+
+        add(controlPanel, BorderLayout.NORTH);
+
+        tableModel = new NewsTableModel(feedPageSize);
+
+        newsTable = new JTable(tableModel);
+        newsTable.setRowHeight(35);
+        newsTable.setAutoCreateRowSorter(true);
+        newsTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 16));
+        newsTable.setFont(new Font("Arial", Font.PLAIN, 14));
+
+        JScrollPane scrollPane = new JScrollPane(newsTable);
+        feedBorder = BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Color.GRAY), "All News Articles", 0, 0, new Font("Arial", Font.BOLD, 18));
+        scrollPane.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(0, 15, 15, 15), feedBorder));
+        add(scrollPane, BorderLayout.CENTER);
+
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            BoundedRangeModel range = scrollPane.getVerticalScrollBar().getModel();
+            int remaining = range.getMaximum() - (range.getValue() + range.getExtent());
+            if (!e.getValueIsAdjusting() && remaining < newsTable.getRowHeight() * 20) {
+                loadMoreNews();
+            }
+        });
+
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        statusLabel = new JLabel(" ");
+        btnCancel = new JButton("Cancel");
+        btnCancel.setVisible(false);
+        btnCancel.addActionListener(e -> cancelPendingTasks());
+        btnUndo = new JButton("Undo");
+        btnUndo.setVisible(false);
+        btnUndo.addActionListener(e -> {
+            Runnable undo = pendingUndo;
+            pendingUndo = null;
+            btnUndo.setVisible(false);
+            undoTimer.stop();
+            if (undo != null) undo.run();
+        });
+        statusPanel.add(progressBar);
+        statusPanel.add(statusLabel);
+        statusPanel.add(btnCancel);
+        statusPanel.add(btnUndo);
+        add(statusPanel, BorderLayout.SOUTH);
+
+        btnManageUsers.addActionListener(e -> new UserManagementDialog(this, async).setVisible(true));
+
+        btnAddNews.addActionListener(e -> {
+            if (currentUser != null) {
+                showAddNewsDialog();
+            } else {
+                JOptionPane.showMessageDialog(this, "Please log in to add news.", "Access Denied", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+
+        btnLoginLogout.addActionListener(e -> {
+            if (currentUser == null) {
+                showLoginWindow();
+            } else {
+                logout();
+            }
+        });
+
+        setupTableButtonColumns();
+        updateUIForLoginState();
+    }
+
+    private void setupTableButtonColumns() {
+        if (newsTable.getColumnModel().getColumnCount() < 8) return;
+
+        TableColumnModel columnModel = newsTable.getColumnModel();
+
+        columnModel.getColumn(4).setCellRenderer(new ButtonRenderer("View"));
+        columnModel.getColumn(4).setCellEditor(new ButtonEditor(new JCheckBox(), newsTable, this, "View"));
+        columnModel.getColumn(4).setMaxWidth(80);
+
+        columnModel.getColumn(5).setCellRenderer(new ButtonRenderer("History"));
+        columnModel.getColumn(5).setCellEditor(new ButtonEditor(new JCheckBox(), newsTable, this, "History"));
+        columnModel.getColumn(5).setMaxWidth(80);
+
+        columnModel.getColumn(6).setCellRenderer(new ButtonRenderer("Edit"));
+        columnModel.getColumn(6).setCellEditor(new ButtonEditor(new JCheckBox(), newsTable, this, "Edit"));
+        columnModel.getColumn(6).setMaxWidth(80);
+
+        columnModel.getColumn(7).setCellRenderer(new ButtonRenderer("Delete"));
+        columnModel.getColumn(7).setCellEditor(new ButtonEditor(new JCheckBox(), newsTable, this, "Delete"));
+        columnModel.getColumn(7).setMaxWidth(80);
+
+        columnModel.getColumn(0).setMaxWidth(60);
+    }
+
+    /**
+     * Runs a database task off the EDT while the status bar shows a loading indicator.
+     * Both callbacks run on the EDT; neither is called if the task is cancelled.
+     */
+    private <T> CompletableFuture<T> inBackground(String description, CompletableFuture<T> task,
+                                                  Consumer<? super T> onSuccess, Consumer<Throwable> onFailure) {
+        pendingTasks.add(task);
+        updateStatus(description);
+        task.whenCompleteAsync((result, error) -> {
+            pendingTasks.remove(task);
+            updateStatus(null);
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                onFailure.accept(cause);
+            }
+        }, EDT);
+        return task;
+    }
+
+    private void updateStatus(String description) {
+        boolean busy = !pendingTasks.isEmpty();
+        progressBar.setVisible(busy);
+        btnCancel.setVisible(busy);
+        if (description != null) {
+            statusLabel.setText(description);
+        } else if (!busy) {
+            statusLabel.setText(" ");
+        }
+    }
+
+    private void cancelPendingTasks() {
+        for (CompletableFuture<?> task : new ArrayList<>(pendingTasks)) {
+            task.cancel(true);
+        }
+        statusLabel.setText("Cancelled.");
+    }
+
+    /**
+     * Shows {@code message} with an Undo button for the purge delay, less a margin so a
+     * click near the end does not race the purge. Clicking runs {@code undo} once.
+     */
+    private void offerUndo(String message, Runnable undo) {
+        long windowMs = TimeUnit.SECONDS.toMillis(AppConfig.getLong("newsdata.delete.undoSeconds", 30L));
+        int visibleMs = (int) Math.max(0, windowMs - 5_000L);
+        if (undoTimer != null) undoTimer.stop();
+        statusLabel.setText(message);
+        if (visibleMs == 0) return;
+        pendingUndo = undo;
+        btnUndo.setVisible(true);
+        undoTimer = new Timer(visibleMs, e -> {
+            pendingUndo = null;
+            btnUndo.setVisible(false);
+        });
+        undoTimer.setRepeats(false);
+        undoTimer.start();
+    }
+
+    private void showDatabaseError(String message, Throwable e) {
+        JOptionPane.showMessageDialog(this, message + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Migrates and checks the database off the EDT, so the window (and the saved snapshot,
+     * if there is one) shows at once. Once connected, the snapshot is brought up to date by
+     * replaying the change log from where it was saved; when that is not possible, or there
+     * was no snapshot, the feed is loaded in full.
+     */
+    private void connect(FeedSnapshot snapshot) {
+        String description = snapshot == null ? "Connecting to database..."
+                : "Showing " + snapshot.rows.size() + " saved articles; refreshing...";
+        inBackground(description, async.connect(), latestSeq -> {
+            long behind = snapshot == null ? -1 : latestSeq - snapshot.changeSeq;
+            if (changeCursor == null && feedLoad == null) {
+                if (behind >= 0 && behind <= AppConfig.getLong("newsdata.snapshot.maxReplay", 10_000L)) {
+                    changeCursor = new ChangeCursor(snapshot.changeSeq);
+                    pollChanges();
+                } else {
+                    loadNewsData();
+                }
+            }
+            buildSearchIndex();
+            refreshAuthorList();
+            startChangePolling();
+            purger = new TombstonePurger(model).start();
+            publisher = new PublishScheduler(model).start();
+        }, e -> {
+            if (e instanceof FeedPlanException) {
+                JOptionPane.showMessageDialog(this, "The feed query no longer uses its index, so the feed would be slow: "
+                        + e.getMessage() + "\nCheck the news indexes, or set newsdata.schema.verifyPlan=false to start anyway.",
+                        "Query Plan Regression", JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Database Connection Failed! Check your database server, driver, and credentials (" + model.describe() + ").", "Connection Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    /** Saves the first feed page and its change-log position for the next launch. */
+    private void saveSnapshot() {
+        if (snapshotFile == null || changeCursor == null || !tableModel.showsFeed() || feedAuthor != null) return;
+        FeedSnapshot snapshot = new FeedSnapshot(model.describe(), changeCursor.from(),
+                tableModel.hasMore() || tableModel.getRowCount() > feedPageSize, tableModel.firstRows(feedPageSize));
+        try {
+            snapshot.save(snapshotFile);
+        } catch (IOException e) {
+            Metrics.event("snapshot_save_failed", "saveSnapshot " + snapshotFile, e);
+        }
+    }
+
+    public void loadNewsData() {
+        if (feedLoad != null) {
+            feedLoad.cancel(true);
+        }
+        Metrics.OpTimer timer = Metrics.startAsync("loadNewsData");
+        User author = feedAuthor;
+        CompletableFuture<FeedHead> load = author == null ? async.getFeedHead(feedPageSize)
+                : async.getAuthorFeedHead(author.getId(), feedPageSize);
+        feedLoad = load;
+        load.whenComplete((head, error) -> {
+            if (load.isCancelled()) timer.cancel();
+        });
+        inBackground("Loading news...", load, head -> {
+            if (feedLoad == load) feedLoad = null;
+            timer.mark("fetch");
+            tableModel.setAuthorFilter(author == null ? 0 : author.getId());
+            tableModel.replaceAll(head.rows);
+            changeCursor = new ChangeCursor(head.changeSeq);
+            timer.mark("render");
+            timer.stop();
+        }, e -> {
+            if (feedLoad == load) feedLoad = null;
+            timer.fail(e);
+            timer.stop();
+            showDatabaseError("Failed to load news data. Check if 'news' table exists: ", e);
+        });
+    }
+
+    private void loadMoreNews() {
+        if (feedLoad != null || !tableModel.hasMore()) return;
+        CompletableFuture<List<NewsRow>> load = feedAuthor == null
+                ? async.getNewsPage(tableModel.nextCursor(), feedPageSize)
+                : async.getAuthorPage(feedAuthor.getId(), tableModel.nextCursor(), feedPageSize);
+        feedLoad = load;
+        inBackground("Loading more news...", load, page -> {
+            if (feedLoad == load) feedLoad = null;
+            tableModel.append(page);
+        }, e -> {
+            if (feedLoad == load) feedLoad = null;
+            showDatabaseError("Failed to load more news: ", e);
+        });
+    }
+
+    /** Switches the table between the whole feed and one author's articles, and reloads it. */
+    private void showAuthor(User author) {
+        if (author == null && feedAuthor == null) return;
+        feedAuthor = author;
+        selectAuthor(author);
+        feedBorder.setTitle(author == null ? "All News Articles" : "Articles by " + author.getUsername());
+        repaint();
+        loadNewsData();
+    }
+
+    /** Points the author picker at {@code author} without triggering another reload. */
+    private void selectAuthor(User author) {
+        updatingAuthors = true;
+        try {
+            DefaultComboBoxModel<User> authors = (DefaultComboBoxModel<User>) authorFilter.getModel();
+            if (author == null) {
+                authors.setSelectedItem(ALL_AUTHORS);
+                return;
+            }
+            for (int i = 0; i < authors.getSize(); i++) {
+                if (authors.getElementAt(i).getId() == author.getId()) {
+                    authors.setSelectedItem(authors.getElementAt(i));
+                    return;
+                }
+            }
+            authors.addElement(author);
+            authors.setSelectedItem(author);
+        } finally {
+            updatingAuthors = false;
+        }
+    }
+
+    /** Refills the author picker from the author directory, keeping the current choice. */
+    private void refreshAuthorList() {
+        async.getAuthors().whenCompleteAsync((authors, error) -> {
+            if (error != null) return;
+            updatingAuthors = true;
+            try {
+                DefaultComboBoxModel<User> items = (DefaultComboBoxModel<User>) authorFilter.getModel();
+                items.removeAllElements();
+                items.addElement(ALL_AUTHORS);
+                for (User author : authors) {
+                    items.addElement(author);
+                }
+            } finally {
+                updatingAuthors = false;
+            }
+            selectAuthor(feedAuthor);
+        }, EDT);
+    }
+
+    private void startChangePolling() {
+        int intervalMs = AppConfig.getInt("newsdata.changes.pollMs", 2000);
+        if (intervalMs <= 0) return;
+        changeTimer = new Timer(intervalMs, e -> pollChanges());
+        changeTimer.start();
+    }
+
+    /**
+     * Fetches change-log entries past the cursor and applies them to the table. Runs on
+     * the EDT; at most one poll is in flight, and results are dropped if the feed was
+     * reloaded (and the cursor replaced) while the poll was running.
+     */
+    private void pollChanges() {
+        ChangeCursor cursor = changeCursor;
+        if (cursor == null || changePoll != null) return;
+        int batch = AppConfig.getInt("newsdata.changes.batchSize", 500);
+        CompletableFuture<List<FeedChange>> poll = async.getChangesSince(cursor.from(), batch);
+        changePoll = poll;
+        poll.whenCompleteAsync((changes, error) -> {
+            changePoll = null;
+            if (error != null || cursor != changeCursor) return;
+            List<FeedChange> fresh = cursor.accept(changes, System.nanoTime());
+            applyChanges(fresh);
+            if (changes.size() == batch && !fresh.isEmpty()) {
+                pollChanges();
+            }
+        }, EDT);
+    }
+
+    private void applyChanges(List<FeedChange> changes) {
+        boolean reload = false;
+        for (FeedChange change : changes) {
+            switch (change.op) {
+                case ADD:
+                case MODIFY:
+                    if (change.row != null) {
+                        tableModel.upsert(change.row);
+                    } else {
+                        tableModel.remove(change.newsId);
+                    }
+                    break;
+                case DELETE:
+                    tableModel.remove(change.newsId);
+                    break;
+                case DELETE_USER:
+                    tableModel.removeByAuthor(change.authorId);
+                    break;
+                case RELOAD:
+                    reload = true;
+                    break;
+            }
+        }
+        if (reload) {
+            buildSearchIndex();
+            if (tableModel.showsFeed()) loadNewsData();
+        }
+    }
+
+    private void exportArchive() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Archive (.jsonl or .csv, add .gz to compress)");
+        chooser.setSelectedFile(new File("news-archive.jsonl.gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        CompletableFuture<ArchiveExporter.Report> export = async.exportArchive(file,
+                progress -> {
+                    String text = "Exporting... " + progress;
+                    EDT.execute(() -> updateStatus(text));
+                });
+        inBackground("Exporting archive...", export,
+                report -> JOptionPane.showMessageDialog(this, "Exported " + report.rows + " articles to " + file
+                        + String.format("%n%.0f rows/s, %.1f MB/s", report.rowsPerSecond(), report.megabytesPerSecond()),
+                        "Export Finished", JOptionPane.INFORMATION_MESSAGE),
+                e -> showDatabaseError("Export failed: ", e));
+    }
+
+    private void buildSearchIndex() {
+        async.buildSearchIndex().whenCompleteAsync((indexed, error) -> {
+            if (error != null) {
+                statusLabel.setText("Search unavailable: " + error.getMessage());
+            } else if (pendingTasks.isEmpty()) {
+                statusLabel.setText("Search index ready (" + indexed + " articles).");
+            }
+        }, EDT);
+    }
+
+    private void runSearch() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            loadNewsData();
+            return;
+        }
+        if (feedLoad != null) {
+            feedLoad.cancel(true);
+            feedLoad = null;
+        }
+        int limit = AppConfig.getInt("newsdata.search.maxResults", 500);
+        inBackground("Searching...", async.search(query, limit), result -> {
+            tableModel.showResults(result.rows);
+            statusLabel.setText(String.format("%d matches for \"%s\" (%.1f ms)%s", result.totalMatches, query,
+                    result.elapsedNanos / 1e6, model.getSearchIndexSize() == 0 ? " - search index is still building" : ""));
+        }, e -> showDatabaseError("Search failed: ", e));
+    }
+
+    private void showLoginWindow() {
+        JTextField usernameField = new JTextField(15);
+        JPasswordField passwordField = new JPasswordField(15);
+
+        JPanel loginPanel = new JPanel(new GridLayout(2, 2, 10, 10));
+        loginPanel.add(new JLabel("Username (Name):"));
+        loginPanel.add(usernameField);
+        loginPanel.add(new JLabel("Password:"));
+        loginPanel.add(passwordField);
+
+        int result = JOptionPane.showConfirmDialog(this, loginPanel, "Login", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String username = usernameField.getText();
+            String password = new String(passwordField.getPassword());
+            btnLoginLogout.setEnabled(false);
+
+            inBackground("Logging in...", async.authenticateUser(username, password), user -> {
+                btnLoginLogout.setEnabled(true);
+                if (user != null) {
+                    currentUser = user;
+                    JOptionPane.showMessageDialog(this, "Login successful. Welcome, " + user.getUsername() + "!");
+                    updateUIForLoginState();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Invalid username or password.", "Login Failed", JOptionPane.ERROR_MESSAGE);
+                }
+            }, e -> {
+                btnLoginLogout.setEnabled(true);
+                if (e instanceof LoginBlockedException) {
+                    JOptionPane.showMessageDialog(this, e.getMessage(), "Login Blocked", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    showDatabaseError("Login failed: ", e);
+                }
+            });
+        }
+    }
+
+    public void logout() {
+        currentUser = null;
+        JOptionPane.showMessageDialog(this, "Logged out successfully.");
+        updateUIForLoginState();
+    }
+
+    private void updateUIForLoginState() {
+        if (currentUser != null) {
+            btnLoginLogout.setText("Logout (" + currentUser.getUsername() + ")");
+            btnAddNews.setEnabled(true);
+        } else {
+            btnLoginLogout.setText("Login");
+            btnAddNews.setEnabled(false);
+        }
+        btnMyArticles.setEnabled(currentUser != null);
+        tableModel.setCurrentUser(currentUser == null ? 0 : currentUser.getId());
+    }
+
+    public void showNewsDetails(int newsId, String title) {
+        inBackground("Loading article " + newsId + "...", async.getNewsBody(newsId),
+                body -> showNewsBody(title, body),
+                e -> showDatabaseError("Failed to load article: ", e));
+    }
+
+    public void showNewsHistory(int newsId, String title) {
+        inBackground("Loading history of article " + newsId + "...", async.getRevisions(newsId), revisions -> {
+            if (revisions.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "\"" + title + "\" has not been edited yet.", "History", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                showHistoryDialog(newsId, title, revisions);
+            }
+        }, e -> showDatabaseError("Failed to load history: ", e));
+    }
+
+    /** Lists the saved versions, newest first; selecting one rebuilds and shows its body. */
+    private void showHistoryDialog(int newsId, String title, List<Revision> revisions) {
+        DefaultListModel<String> items = new DefaultListModel<>();
+        for (Revision revision : revisions) {
+            String savedAt = revision.getSavedAt() == null ? "before history" : revision.getSavedAt().toString();
+            items.addElement(String.format("v%d  %s  %s  (%,d chars, %,d bytes stored%s)", revision.getVersion(), savedAt,
+                    revision.getTitle(), revision.getBodyLength(), revision.getStoredBytes(), revision.isCheckpoint() ? ", full" : ""));
+        }
+        JList<String> list = new JList<>(items);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        JTextArea bodyArea = new JTextArea();
+        bodyArea.setWrapStyleWord(true);
+        bodyArea.setLineWrap(true);
+        bodyArea.setEditable(false);
+        bodyArea.setFont(new Font("Arial", Font.PLAIN, 15));
+
+        list.addListSelectionListener(e -> {
+            int index = list.getSelectedIndex();
+            if (e.getValueIsAdjusting() || index < 0) return;
+            int version = revisions.get(index).getVersion();
+            bodyArea.setText("Loading...");
+            inBackground("Loading version " + version + "...", async.getRevisionBody(newsId, version), body -> {
+                if (list.getSelectedIndex() == index) {
+                    bodyArea.setText(body != null ? body : "This version is no longer available.");
+                    bodyArea.setCaretPosition(0);
+                }
+            }, error -> bodyArea.setText("Failed to load this version: " + error.getMessage()));
+        });
+        list.setSelectedIndex(0);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(list), new JScrollPane(bodyArea));
+        split.setDividerLocation(150);
+        split.setPreferredSize(new Dimension(700, 500));
+        JOptionPane.showMessageDialog(this, split, "History: " + title, JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private void showNewsBody(String title, String body) {
+        JTextArea textArea = new JTextArea(body);
+        textArea.setWrapStyleWord(true);
+        textArea.setLineWrap(true);
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Arial", Font.PLAIN, 15));
+
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(650, 450));
+
+        JOptionPane.showMessageDialog(this, scrollPane, "Viewing: " + title, JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private void showAddNewsDialog() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 5, 10, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        JTextField titleField = new JTextField(35);
+        JTextArea bodyArea = new JTextArea(10, 35);
+        bodyArea.setLineWrap(true);
+        bodyArea.setFont(new Font("Arial", Font.PLAIN, 14));
+
+        gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Title:"), gbc);
+        gbc.gridx = 1; gbc.gridy = 0; panel.add(titleField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1; gbc.anchor = GridBagConstraints.NORTHWEST; panel.add(new JLabel("Content:"), gbc);
+        gbc.gridx = 1; gbc.gridy = 1; gbc.gridheight = 2; gbc.weighty = 1.0; panel.add(new JScrollPane(bodyArea), gbc);
+
+        JTextField publishField = new JTextField(16);
+        publishField.setToolTipText("yyyy-MM-dd HH:mm; leave blank to publish now");
+        gbc.gridheight = 1; gbc.weighty = 0;
+        gbc.gridx = 0; gbc.gridy = 3; panel.add(new JLabel("Publish at:"), gbc);
+        gbc.gridx = 1; gbc.gridy = 3; panel.add(publishField, gbc);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add New News Article (Author: " + currentUser.getUsername() + ")", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String title = titleField.getText().trim();
+            String body = bodyArea.getText().trim();
+            int uId = currentUser.getId();
+
+            if (title.isEmpty() || body.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Title and Body are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            Timestamp publishAt;
+            try {
+                publishAt = parsePublishTime(publishField.getText());
+            } catch (DateTimeParseException e) {
+                JOptionPane.showMessageDialog(this, "Publish time must look like 2025-11-27 08:00.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (publishAt != null) {
+                inBackground("Scheduling article...", async.scheduleNews(title, body, uId, publishAt), newsId -> {
+                    if (newsId > 0) {
+                        if (publisher != null) publisher.schedule(publishAt);
+                        JOptionPane.showMessageDialog(this, "News scheduled for " + publishAt.toLocalDateTime() + ".", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Failed to schedule news. Check the console for detailed SQL error message.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, e -> showDatabaseError("Failed to schedule news: ", e));
+                return;
+            }
+
+            inBackground("Saving article...", async.addNews(title, body, uId), added -> {
+                if (added != null) {
+                    tableModel.insert(added);
+                    JOptionPane.showMessageDialog(this, "News added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to add news. Check the console for detailed SQL error message.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, e -> showDatabaseError("Failed to add news: ", e));
+        }
+    }
+
+    /**
+     * Publish time from "yyyy-MM-dd HH:mm[:ss]" (a 'T' also works), to the second; null
+     * for a blank field or a time that has already passed, which mean "publish now".
+     */
+    static Timestamp parsePublishTime(String text) {
+        String value = text == null ? "" : text.trim();
+        if (value.isEmpty()) return null;
+        LocalDateTime at = LocalDateTime.parse(value.replace(' ', 'T')).withNano(0);
+        return at.isAfter(LocalDateTime.now()) ? Timestamp.valueOf(at) : null;
+    }
+
+    public void handleModifyNews(int newsId) {
+        inBackground("Loading article " + newsId + "...", async.findArticle(newsId), article -> {
+            if (article == null) {
+                tableModel.remove(newsId);
+                JOptionPane.showMessageDialog(this, "News article ID " + newsId + " no longer exists.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            tableModel.updateTitle(newsId, article.getRow().getTitle());
+            showModifyNewsDialog(article, article.getRow().getTitle(), article.getBody(), false);
+        }, e -> showDatabaseError("Failed to load article: ", e));
+    }
+
+    /**
+     * Edits {@code base}. With {@code conflict} set, base is another editor's newer version:
+     * it is shown read-only above the fields, which hold this user's text to merge into it.
+     */
+    private void showModifyNewsDialog(Article base, String currentTitle, String currentBody, boolean conflict) {
+        int newsId = base.getRow().getNewsId();
+        JTextField titleField = new JTextField(currentTitle, 30);
+        JTextArea bodyArea = new JTextArea(currentBody, 10, 30);
+        bodyArea.setLineWrap(true);
+        bodyArea.setFont(new Font("Arial", Font.PLAIN, 14));
+        JScrollPane scrollPane = new JScrollPane(bodyArea);
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 5, 10, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        int top = 0;
+        if (conflict) {
+            JTextArea theirsArea = new JTextArea(base.getRow().getTitle() + "\n\n" + base.getBody(), 6, 30);
+            theirsArea.setLineWrap(true);
+            theirsArea.setEditable(false);
+            theirsArea.setFont(new Font("Arial", Font.PLAIN, 14));
+            gbc.gridx = 0; gbc.gridy = 0; gbc.gridwidth = 2;
+            panel.add(new JLabel("Someone else saved this article while you were editing. Their version:"), gbc);
+            gbc.gridy = 1; panel.add(new JScrollPane(theirsArea), gbc);
+            gbc.gridy = 2; panel.add(new JLabel("Your changes (OK saves them over theirs, Cancel keeps theirs):"), gbc);
+            gbc.gridwidth = 1;
+            top = 3;
+        }
+        gbc.gridx = 0; gbc.gridy = top; panel.add(new JLabel("Title:"), gbc);
+        gbc.gridx = 1; gbc.gridy = top; panel.add(titleField, gbc);
+        gbc.gridx = 0; gbc.gridy = top + 1; gbc.anchor = GridBagConstraints.NORTHWEST; panel.add(new JLabel("Content:"), gbc);
+        gbc.gridx = 1; gbc.gridy = top + 1; gbc.gridheight = 2; gbc.weighty = 1.0; panel.add(scrollPane, gbc);
+
+        String dialogTitle = (conflict ? "Resolve Edit Conflict" : "Modify News Article") + " (ID: " + newsId + ")";
+        int result = JOptionPane.showConfirmDialog(this, panel, dialogTitle, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String newTitle = titleField.getText().trim();
+            String newBody = bodyArea.getText().trim();
+
+            if (newTitle.isEmpty() || newBody.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Title and Body are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            saveEdit(base, newTitle, newBody);
+        }
+    }
+
+    /**
+     * Saves an edit made against {@code base} with a compare-and-set on its version. If
+     * someone else saved in between, edits to different fields are merged and retried
+     * automatically; overlapping edits reopen the dialog with both versions.
+     */
+    private void saveEdit(Article base, String newTitle, String newBody) {
+        int newsId = base.getRow().getNewsId();
+        inBackground("Saving article " + newsId + "...", async.modifyNews(newsId, newTitle, newBody, base.getVersion()), result -> {
+            switch (result.status) {
+                case UPDATED:
+                    tableModel.updateTitle(newsId, newTitle);
+                    JOptionPane.showMessageDialog(this, "News modified successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    break;
+                case NOT_FOUND:
+                    tableModel.remove(newsId);
+                    JOptionPane.showMessageDialog(this, "News article ID " + newsId + " was deleted while you were editing it.", "Error", JOptionPane.ERROR_MESSAGE);
+                    break;
+                case CONFLICT:
+                    Article theirs = result.current;
+                    tableModel.updateTitle(newsId, theirs.getRow().getTitle());
+                    String title = mergeField(base.getRow().getTitle(), newTitle, theirs.getRow().getTitle());
+                    String body = mergeField(base.getBody(), newBody, theirs.getBody());
+                    if (title != null && body != null) {
+                        saveEdit(theirs, title, body);
+                    } else {
+                        showModifyNewsDialog(theirs, title != null ? title : newTitle, body != null ? body : newBody, true);
+                    }
+                    break;
+            }
+        }, e -> showDatabaseError("Failed to modify news: ", e));
+    }
+
+    /** Three-way merge of one field: the side that changed it wins; null if both changed it differently. */
+    private static String mergeField(String base, String mine, String theirs) {
+        if (mine.equals(base) || mine.equals(theirs)) return theirs;
+        if (theirs.equals(base)) return mine;
+        return null;
+    }
+
+    public void handleDeleteNews(int newsId) {
+
+        int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete News ID " + newsId + "?", "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            inBackground("Deleting article " + newsId + "...", async.deleteNews(newsId), deleted -> {
+                if (deleted) {
+                    tableModel.remove(newsId);
+                    offerUndo("News article ID " + newsId + " deleted.", () ->
+                            inBackground("Restoring article " + newsId + "...", async.restoreNews(newsId), row -> {
+                                if (row != null) {
+                                    tableModel.insert(row);
+                                    statusLabel.setText("News article ID " + newsId + " restored.");
+                                } else {
+                                    JOptionPane.showMessageDialog(this, "News article ID " + newsId + " can no longer be restored.", "Error", JOptionPane.ERROR_MESSAGE);
+                                }
+                            }, e -> showDatabaseError("Failed to restore news: ", e)));
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to delete news.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, e -> showDatabaseError("Failed to delete news: ", e));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("import")) {
+            System.exit(BulkImporter.runCommand(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            System.exit(ArchiveExporter.runCommand(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            int status = ApiServer.runCommand(Arrays.copyOfRange(args, 1, args.length));
+            if (status != 0) System.exit(status);
+            return;
+        }
+        SwingUtilities.invokeLater(() -> new NewspaperApp());
+    }
+
+    private static class UserManagementDialog extends JDialog {
+        private final NewspaperApp parentApp;
+        private final AsyncNewsData model;
+        private JTable userTable;
+        private DefaultTableModel userTableModel;
+
+        public UserManagementDialog(NewspaperApp parent, AsyncNewsData model) {
+            super(parent, "User Management List", true);
+            this.parentApp = parent;
+            this.model = model;
+            setSize(700, 450);
+            setLayout(new BorderLayout(15, 15));
+            setLocationRelativeTo(parent);
+
+            initializeUserUI();
+            loadUserData();
+        }
+
+        private void initializeUserUI() {
+            userTableModel = new DefaultTableModel();
+            userTable = new JTable(userTableModel);
+            userTable.setRowHeight(30);
+            userTable.setAutoCreateRowSorter(true);
+            userTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 15));
+            userTable.setFont(new Font("Arial", Font.PLAIN, 14));
+
+            JScrollPane scrollPane = new JScrollPane(userTable);
+            scrollPane.setBorder(BorderFactory.createTitledBorder("All Registered Users"));
+            add(scrollPane, BorderLayout.CENTER);
+
+            JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 10));
+            JButton btnAddUser = new JButton("Add New User");
+            JButton btnDeleteUser = new JButton("Delete Selected User");
+
+            Font smallFont = new Font("Arial", Font.BOLD, 14);
+            btnAddUser.setFont(smallFont);
+            btnDeleteUser.setFont(smallFont);
+
+            btnAddUser.addActionListener(e -> showAddUserDialog());
+
+            btnDeleteUser.addActionListener(e -> handleDeleteUser());
+
+            controlPanel.add(btnAddUser);
+            controlPanel.add(btnDeleteUser);
+            add(controlPanel, BorderLayout.SOUTH);
+        }
+
+        private void loadUserData() {
+            Metrics.OpTimer timer = Metrics.startAsync("loadUserData");
+            parentApp.inBackground("Loading users...", model.getAllUsers(), data -> {
+                timer.mark("fetch");
+                userTableModel.setDataVector(data.getRows(), data.getColumnNames());
+                timer.mark("render");
+                timer.stop();
+            }, e -> {
+                timer.fail(e);
+                timer.stop();
+                JOptionPane.showMessageDialog(this, "Failed to load user data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+            });
+        }
+
+        private void showAddUserDialog() {
+            JPanel panel = new JPanel(new GridBagLayout());
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.insets = new Insets(5, 5, 5, 5);
+            gbc.fill = GridBagConstraints.HORIZONTAL;
+
+            JTextField nameField = new JTextField(20);
+            JTextField emailField = new JTextField(20);
+            JTextField ageField = new JTextField(5);
+            JPasswordField passwordField = new JPasswordField(20);
+
+            gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Name (Username):"), gbc);
+            gbc.gridx = 1; gbc.gridy = 0; panel.add(nameField, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 1; panel.add(new JLabel("Email (Optional):"), gbc);
+            gbc.gridx = 1; gbc.gridy = 1; panel.add(emailField, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 2; panel.add(new JLabel("Password:"), gbc);
+            gbc.gridx = 1; gbc.gridy = 2; panel.add(passwordField, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 3; panel.add(new JLabel("Age (Optional):"), gbc);
+            gbc.gridx = 1; gbc.gridy = 3; panel.add(ageField, gbc);
+
+
+            int result = JOptionPane.showConfirmDialog(this, panel, "Add New User", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+            if (result == JOptionPane.OK_OPTION) {
+                String name = nameField.getText().trim();
+                String email = emailField.getText().trim();
+                String password = new String(passwordField.getPassword());
+                int age = 0;
+
+                try {
+                    String ageText = ageField.getText().trim();
+                    if (!ageText.isEmpty()) {
+                        age = Integer.parseInt(ageText);
+                    }
+                } catch (NumberFormatException ignored) {}
+
+                if (name.isEmpty() || password.isEmpty()) {
+                    JOptionPane.showMessageDialog(this, "Name and Password are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                parentApp.inBackground("Adding user...", model.addUser(name, email, age, password), added -> {
+                    if (added) {
+                        JOptionPane.showMessageDialog(this, "User added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        loadUserData();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Failed to add user. Check if Name/Email is already used.", "Database Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, e -> JOptionPane.showMessageDialog(this, "Failed to add user: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE));
+            }
+        }
+
+        private void handleDeleteUser() {
+            int selectedRow = userTable.getSelectedRow();
+            if (selectedRow == -1) {
+                JOptionPane.showMessageDialog(this, "Please select a user to delete.", "Warning", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+
+            int selectedUserId = (int) userTableModel.getValueAt(userTable.convertRowIndexToModel(selectedRow), 0);
+            String name = (String) userTableModel.getValueAt(userTable.convertRowIndexToModel(selectedRow), 1);
+
+            if (parentApp.currentUser == null || parentApp.currentUser.getId() != selectedUserId) {
+                JOptionPane.showMessageDialog(this, "Access Denied. You can only delete your own account.", "Security Warning", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete user ID " + selectedUserId + " (" + name + ") and all of their articles?", "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+
+            if (confirm == JOptionPane.YES_OPTION) {
+                parentApp.inBackground("Deleting user " + selectedUserId + "...", model.deleteUser(selectedUserId), deleted -> {
+                    if (deleted) {
+                        JOptionPane.showMessageDialog(this, "User ID " + selectedUserId + " deleted successfully! You have been logged out.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        parentApp.logout();
+                        loadUserData();
+                        parentApp.tableModel.removeByAuthor(selectedUserId);
+                        parentApp.offerUndo("User " + name + " deleted.", () ->
+                                parentApp.inBackground("Restoring user " + name + "...", model.restoreUser(selectedUserId), restored -> {
+                                    if (restored) {
+                                        parentApp.loadNewsData();
+                                        parentApp.statusLabel.setText("User " + name + " restored; log in again to continue.");
+                                    } else {
+                                        JOptionPane.showMessageDialog(parentApp, "User " + name + " can no longer be restored.", "Error", JOptionPane.ERROR_MESSAGE);
+                                    }
+                                }, e -> parentApp.showDatabaseError("Failed to restore user: ", e)));
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Failed to delete user.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, e -> JOptionPane.showMessageDialog(this, "Failed to delete user: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE));
+            }
+        }
+    }
+
+    /**
+     * Feed table model that holds only the pages fetched so far. The first page replaces
+     * the contents on {@link #replaceAll}; further pages are appended by {@link #append}
+     * as the user scrolls towards the end of the table.
+     * <p>
+     * Rows are kept in feed order and indexed by News_id, so single-article changes are
+     * applied in place with row-level events instead of reloading the feed.
+     * <p>
+     * Storage is columnar: parallel arrays with each row's author as its U_id, plus a
+     * per-row flag saying whether the logged-in user may edit the row. The flags are
+     * recomputed by {@link #setCurrentUser} on login and logout, so the button renderers
+     * read one boolean per cell instead of comparing authors on every repaint. Names are
+     * display-only; rights, filters and removals go by id, so a renamed or recreated
+     * account never inherits another's rows.
+     */
+    static class NewsTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"News_id", "Title", "Created_at", "Author_Name", "Show Body", "History", "Modify", "Delete"};
+        private static final int NO_AUTHOR = 0;
+
+        private final int pageSize;
+        private int size;
+        private int[] ids = new int[16];
+        private String[] titles = new String[16];
+        private Timestamp[] createdAt = new Timestamp[16];
+        private int[] authors = new int[16];
+        private boolean[] editable = new boolean[16];
+        private final Map<Integer, Timestamp> createdById = new HashMap<>();
+        private final Map<Integer, String> authorNames = new HashMap<>();
+        private int currentAuthor = NO_AUTHOR;
+        private int authorFilter = NO_AUTHOR;
+        private boolean hasMore = true;
+        private boolean feedOrdered = true;
+
+        NewsTableModel(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        void replaceAll(List<NewsRow> firstPage) {
+            replaceAll(firstPage, firstPage.size() == pageSize);
+        }
+
+        void replaceAll(List<NewsRow> firstPage, boolean hasMore) {
+            clear();
+            addAll(firstPage);
+            this.hasMore = hasMore;
+            feedOrdered = true;
+            fireTableDataChanged();
+        }
+
+        /** Shows ranked search results; paging and feed-order inserts are off until the next reload. */
+        void showResults(List<NewsRow> results) {
+            clear();
+            addAll(results);
+            hasMore = false;
+            feedOrdered = false;
+            fireTableDataChanged();
+        }
+
+        void append(List<NewsRow> page) {
+            hasMore = page.size() == pageSize;
+            if (page.isEmpty()) return;
+            int first = size;
+            addAll(page);
+            fireTableRowsInserted(first, size - 1);
+        }
+
+        /** Limits live inserts to one author's articles while the table lists only theirs; 0 lifts it. */
+        void setAuthorFilter(int uId) {
+            authorFilter = uId;
+        }
+
+        /** Inserts a row at its feed position, unless that position lies past the loaded pages. */
+        void insert(NewsRow row) {
+            if (!feedOrdered || createdById.containsKey(row.getNewsId())) return;
+            if (authorFilter != NO_AUTHOR && authorFilter != row.getAuthorId()) return;
+            int pos = -(indexOf(row.getNewsId(), row.getCreatedAt()) + 1);
+            if (pos == size && hasMore) return;
+            ensureCapacity(size + 1);
+            shift(pos, pos + 1, size - pos);
+            size++;
+            set(pos, row);
+            fireTableRowsInserted(pos, pos);
+        }
+
+        /** Updates the row in place if it is loaded, otherwise inserts it like {@link #insert}. */
+        void upsert(NewsRow row) {
+            if (createdById.containsKey(row.getNewsId())) {
+                updateTitle(row.getNewsId(), row.getTitle());
+            } else {
+                insert(row);
+            }
+        }
+
+        void updateTitle(int newsId, String newTitle) {
+            Timestamp created = createdById.get(newsId);
+            if (created == null) return;
+            int pos = indexOf(newsId, created);
+            titles[pos] = newTitle;
+            fireTableRowsUpdated(pos, pos);
+        }
+
+        void remove(int newsId) {
+            Timestamp created = createdById.get(newsId);
+            if (created == null) return;
+            int pos = indexOf(newsId, created);
+            createdById.remove(newsId);
+            shift(pos + 1, pos, size - pos - 1);
+            size--;
+            titles[size] = null;
+            createdAt[size] = null;
+            fireTableRowsDeleted(pos, pos);
+        }
+
+        /** Drops every row by user {@code uId} in one compacting pass and one table event. */
+        void removeByAuthor(int uId) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (authors[i] == uId) {
+                    createdById.remove(ids[i]);
+                } else {
+                    if (kept != i) {
+                        ids[kept] = ids[i];
+                        titles[kept] = titles[i];
+                        createdAt[kept] = createdAt[i];
+                        authors[kept] = authors[i];
+                        editable[kept] = editable[i];
+                    }
+                    kept++;
+                }
+            }
+            if (kept == size) return;
+            Arrays.fill(titles, kept, size, null);
+            Arrays.fill(createdAt, kept, size, null);
+            size = kept;
+            fireTableDataChanged();
+        }
+
+        /** Recomputes the editable flags for user {@code uId}, or clears them when 0. */
+        void setCurrentUser(int uId) {
+            currentAuthor = uId;
+            for (int i = 0; i < size; i++) {
+                editable[i] = authors[i] == currentAuthor;
+            }
+            if (size > 0) {
+                fireTableRowsUpdated(0, size - 1);
+            }
+        }
+
+        boolean isEditable(int modelRow) {
+            return modelRow >= 0 && modelRow < size && editable[modelRow];
+        }
+
+        int getNewsId(int modelRow) {
+            return ids[modelRow];
+        }
+
+        String getTitle(int modelRow) {
+            return titles[modelRow];
+        }
+
+        String getAuthorName(int modelRow) {
+            return authorNames.get(authors[modelRow]);
+        }
+
+        int getAuthorId(int modelRow) {
+            return authors[modelRow];
+        }
+
+        private void clear() {
+            Arrays.fill(titles, 0, size, null);
+            Arrays.fill(createdAt, 0, size, null);
+            size = 0;
+            createdById.clear();
+        }
+
+        private void addAll(List<NewsRow> page) {
+            ensureCapacity(size + page.size());
+            for (NewsRow row : page) {
+                set(size++, row);
+            }
+        }
+
+        private void set(int pos, NewsRow row) {
+            int author = row.getAuthorId();
+            authorNames.put(author, row.getAuthorName());
+            ids[pos] = row.getNewsId();
+            titles[pos] = row.getTitle();
+            createdAt[pos] = row.getCreatedAt();
+            authors[pos] = author;
+            editable[pos] = author == currentAuthor;
+            createdById.put(row.getNewsId(), row.getCreatedAt());
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= ids.length) return;
+            int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            editable = Arrays.copyOf(editable, capacity);
+        }
+
+        private void shift(int from, int to, int length) {
+            System.arraycopy(ids, from, ids, to, length);
+            System.arraycopy(titles, from, titles, to, length);
+            System.arraycopy(createdAt, from, createdAt, to, length);
+            System.arraycopy(authors, from, authors, to, length);
+            System.arraycopy(editable, from, editable, to, length);
+        }
+
+        /**
+         * Binary search by (Created_at DESC, News_id DESC), or a linear scan while showing
+         * search results; same contract as Collections.binarySearch.
+         */
+        private int indexOf(int newsId, Timestamp created) {
+            if (!feedOrdered) {
+                for (int i = 0; i < size; i++) {
+                    if (ids[i] == newsId) return i;
+                }
+                return -(size + 1);
+            }
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = created.compareTo(createdAt[mid]);
+                if (cmp == 0) cmp = Integer.compare(newsId, ids[mid]);
+                if (cmp < 0) low = mid + 1;
+                else if (cmp > 0) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+
+        /** The first {@code limit} rows, in display order. */
+        List<NewsRow> firstRows(int limit) {
+            int count = Math.min(limit, size);
+            List<NewsRow> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new NewsRow(ids[i], titles[i], createdAt[i], authors[i], getAuthorName(i)));
+            }
+            return rows;
+        }
+
+        FeedCursor nextCursor() {
+            return size == 0 ? null : new FeedCursor(createdAt[size - 1], ids[size - 1]);
+        }
+
+        boolean hasMore() {
+            return hasMore;
+        }
+
+        boolean showsFeed() {
+            return feedOrdered;
+        }
+
+        @Override
+        public int getRowCount() {
+            return size;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0: return Integer.class;
+                case 2: return Object.class;
+                default: return String.class;
+            }
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column >= 4;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int column) {
+            switch (column) {
+                case 0: return ids[rowIndex];
+                case 1: return titles[rowIndex];
+                case 2: return createdAt[rowIndex];
+                case 3: return getAuthorName(rowIndex);
+                case 4: return "View";
+                case 5: return "History";
+                case 6: return "Edit";
+                default: return "Delete";
+            }
+        }
+    }
+
+    /**
+     * Position in the change log. Sequence numbers are handed out when a row is inserted,
+     * not when its transaction commits, so a poll can see seq 11 before seq 10 becomes
+     * visible. Missing numbers are therefore kept open and re-read for a grace period
+     * before the cursor moves past them; entries already applied are filtered out.
+     * Not thread-safe: the desktop client uses it on the EDT, the API server on its poller.
+     */
+    static class ChangeCursor {
+        private static final int MAX_OPEN_GAPS = 1024;
+
+        private final long gapGraceNanos = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("newsdata.changes.gapGraceMs", 10_000L));
+        private final TreeMap<Long, Long> gaps = new TreeMap<>();
+        private long applied;
+
+        ChangeCursor(long start) {
+            this.applied = start;
+        }
+
+        /** Sequence number to poll after: everything at or below it is settled. */
+        long from() {
+            return gaps.isEmpty() ? applied : gaps.firstKey() - 1;
+        }
+
+        /** Records a poll result and returns the entries not applied before, in order. */
+        List<FeedChange> accept(List<FeedChange> changes, long now) {
+            List<FeedChange> fresh = new ArrayList<>(changes.size());
+            for (FeedChange change : changes) {
+                long seq = change.seq;
+                if (seq <= applied) {
+                    if (gaps.remove(seq) != null) fresh.add(change);
+                    continue;
+                }
+                for (long missing = applied + 1; missing < seq && gaps.size() < MAX_OPEN_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                applied = seq;
+                fresh.add(change);
+            }
+            gaps.values().removeIf(noticed -> now - noticed > gapGraceNanos);
+            return fresh;
+        }
+    }
+
+    /**
+     * The first feed page as it was when the desktop client last closed, kept in a local
+     * file so the next launch can paint the table before the database answers. The file is
+     * one record (magic, payload length, CRC32C, payload) read with a single channel read;
+     * it is small enough that mapping it would gain nothing, and a live mapping keeps the
+     * file from being replaced on Windows. Authors (U_id and name) are stored once in a dictionary. Saves go to a temporary file
+     * that is then moved into place, so a crash mid-write leaves the old snapshot intact.
+     * A missing, damaged or foreign snapshot (one taken against another database) is ignored.
+     */
+    static final class FeedSnapshot {
+        private static final int MAGIC = 0x4E465332; // "NFS2"
+        private static final int HEADER_BYTES = 12;
+        private static final long MAX_FILE_BYTES = 64L << 20;
+
+        final String source;
+        final long changeSeq;
+        final boolean hasMore;
+        final List<NewsRow> rows;
+
+        FeedSnapshot(String source, long changeSeq, boolean hasMore, List<NewsRow> rows) {
+            this.source = source;
+            this.changeSeq = changeSeq;
+            this.hasMore = hasMore;
+            this.rows = rows;
+        }
+
+        /** The configured snapshot file, or null when {@code newsdata.snapshot.file} is blank. */
+        static Path fileFromConfig() {
+            String file = AppConfig.get("newsdata.snapshot.file", "data/feed-snapshot.bin").trim();
+            return file.isEmpty() ? null : Paths.get(file);
+        }
+
+        /** Reads the snapshot taken against {@code source}, or returns null if there is no usable one. */
+        static FeedSnapshot load(Path file, String source) {
+            if (file == null || !Files.isRegularFile(file)) return null;
+            Metrics.OpTimer timer = Metrics.start("loadSnapshot");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES || size > MAX_FILE_BYTES) return null;
+                ByteBuffer buf = ByteBuffer.allocate((int) size);
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf) < 0) throw new EOFException("Snapshot file shrank while reading");
+                }
+                buf.flip();
+                if (buf.getInt() != MAGIC || buf.getInt() != buf.remaining() - 4) return null;
+                int crc = buf.getInt();
+                CRC32C check = new CRC32C();
+                check.update(buf.duplicate());
+                if ((int) check.getValue() != crc) return null;
+                FeedSnapshot snapshot = decode(buf);
+                return source.equals(snapshot.source) ? snapshot : null;
+            } catch (IOException | RuntimeException e) {
+                timer.fail(e);
+                return null;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        void save(Path file) throws IOException {
+            Map<Integer, Integer> authorIndex = new HashMap<>();
+            List<NewsRow> authors = new ArrayList<>();
+            for (NewsRow row : rows) {
+                if (authorIndex.putIfAbsent(row.getAuthorId(), authors.size()) == null) {
+                    authors.add(row);
+                }
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + 64 * rows.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(0);
+            out.writeInt(0);
+            writeString(out, source);
+            out.writeLong(changeSeq);
+            out.writeBoolean(hasMore);
+            out.writeInt(authors.size());
+            for (NewsRow author : authors) {
+                out.writeInt(author.getAuthorId());
+                writeString(out, author.getAuthorName());
+            }
+            out.writeInt(rows.size());
+            for (NewsRow row : rows) {
+                out.writeInt(row.getNewsId());
+                out.writeLong(row.getCreatedAt().getTime());
+                out.writeInt(row.getCreatedAt().getNanos());
+                out.writeInt(authorIndex.get(row.getAuthorId()));
+                writeString(out, row.getTitle());
+            }
+
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            CRC32C crc = new CRC32C();
+            crc.update(buf.array(), HEADER_BYTES, buf.limit() - HEADER_BYTES);
+            buf.putInt(4, buf.limit() - HEADER_BYTES);
+            buf.putInt(8, (int) crc.getValue());
+
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    channel.force(false);
+                }
+                try {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        private static FeedSnapshot decode(ByteBuffer buf) {
+            String source = readString(buf);
+            long changeSeq = buf.getLong();
+            boolean hasMore = buf.get() != 0;
+            int[] authorIds = new int[count(buf)];
+            String[] authors = new String[authorIds.length];
+            for (int i = 0; i < authors.length; i++) {
+                authorIds[i] = buf.getInt();
+                authors[i] = readString(buf);
+            }
+            int rowCount = count(buf);
+            List<NewsRow> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                int newsId = buf.getInt();
+                Timestamp createdAt = new Timestamp(buf.getLong());
+                createdAt.setNanos(buf.getInt());
+                int author = buf.getInt();
+                rows.add(new NewsRow(newsId, readString(buf), createdAt, authorIds[author], authors[author]));
+            }
+            return new FeedSnapshot(source, changeSeq, hasMore, rows);
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(ByteBuffer buf) {
+            int length = buf.getInt();
+            if (length < 0) return null;
+            if (length > buf.remaining()) throw new BufferUnderflowException();
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /** Reads an element count, rejecting values the rest of the buffer could not hold. */
+        private static int count(ByteBuffer buf) {
+            int count = buf.getInt();
+            if (count < 0 || count > buf.remaining()) throw new BufferUnderflowException();
+            return count;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T call() throws SQLException, IOException;
+    }
+
+    /** Receives a streaming scan a chunk at a time. The list is reused between calls; copy what you keep. */
+    @FunctionalInterface
+    interface ChunkConsumer<T> {
+        void accept(List<T> chunk) throws SQLException, IOException;
+    }
+
+    /** Column names and rows read from a ResultSet, detached from its connection. */
+    private static class TableData {
+        private final Vector<String> columnNames;
+        private final Vector<Vector<Object>> rows;
+
+        TableData(Vector<String> columnNames, Vector<Vector<Object>> rows) {
+            this.columnNames = columnNames;
+            this.rows = rows;
+        }
+
+        static TableData read(ResultSet rs) throws SQLException {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+
+            Vector<String> columnNames = new Vector<>();
+            for (int i = 1; i <= columnCount; i++) {
+                columnNames.add(metaData.getColumnName(i));
+            }
+
+            Vector<Vector<Object>> rows = new Vector<>();
+            while (rs.next()) {
+                Vector<Object> row = new Vector<>();
+                for (int i = 1; i <= columnCount; i++) {
+                    row.add(rs.getObject(i));
+                }
+                rows.add(row);
+            }
+            return new TableData(columnNames, rows);
+        }
+
+        Vector<String> getColumnNames() { return columnNames; }
+        Vector<Vector<Object>> getRows() { return rows; }
+    }
+
+    /**
+     * Runs NewsData operations on a small bounded pool of worker threads so that JDBC
+     * never blocks the EDT. When the queue is full new requests fail fast instead of
+     * piling up behind a slow database. Cancelling a returned future interrupts its worker.
+     */
+    private static class AsyncNewsData implements AutoCloseable {
+        private final NewsData model;
+        private final ThreadPoolExecutor executor;
+
+        AsyncNewsData(NewsData model, int threads, int queueCapacity) {
+            this.model = model;
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "newsdata-worker-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        <T> CompletableFuture<T> submit(SqlCall<T> call) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Future<?> task;
+            try {
+                task = executor.submit(() -> {
+                    if (result.isDone()) return;
+                    try {
+                        result.complete(call.call());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new SQLException("The database is busy: too many pending requests.", e));
+                return result;
+            }
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+            return result;
+        }
+
+        /** Migrates and checks the database, then returns the latest change-log position. */
+        CompletableFuture<Long> connect() {
+            return submit(() -> {
+                model.connect();
+                return model.getLatestChangeSeq();
+            });
+        }
+
+        CompletableFuture<List<NewsRow>> getNewsPage(FeedCursor after, int limit) {
+            return submit(() -> model.getNewsPage(after, limit));
+        }
+
+        CompletableFuture<String> getNewsBody(int newsId) {
+            return submit(() -> model.getNewsBody(newsId));
+        }
+
+        CompletableFuture<FeedHead> getFeedHead(int limit) {
+            return submit(() -> model.getFeedHead(limit));
+        }
+
+        CompletableFuture<List<NewsRow>> getAuthorPage(int uId, FeedCursor after, int limit) {
+            return submit(() -> model.getAuthorPage(uId, after, limit));
+        }
+
+        CompletableFuture<FeedHead> getAuthorFeedHead(int uId, int limit) {
+            return submit(() -> model.getAuthorFeedHead(uId, limit));
+        }
+
+        CompletableFuture<List<User>> getAuthors() {
+            return submit(model::getAuthors);
+        }
+
+        CompletableFuture<List<FeedChange>> getChangesSince(long seq, int limit) {
+            return submit(() -> model.getChangesSince(seq, limit));
+        }
+
+        CompletableFuture<NewsRow> addNews(String title, String body, int uId) {
+            return submit(() -> model.addNews(title, body, uId));
+        }
+
+        CompletableFuture<Integer> scheduleNews(String title, String body, int uId, Timestamp publishAt) {
+            return submit(() -> model.scheduleNews(title, body, uId, publishAt));
+        }
+
+        CompletableFuture<List<Revision>> getRevisions(int newsId) {
+            return submit(() -> model.getRevisions(newsId));
+        }
+
+        CompletableFuture<String> getRevisionBody(int newsId, int version) {
+            return submit(() -> model.getRevisionBody(newsId, version));
+        }
+
+        CompletableFuture<Article> findArticle(int newsId) {
+            return submit(() -> model.findArticle(newsId));
+        }
+
+        CompletableFuture<ModifyResult> modifyNews(int newsId, String newTitle, String newBody, int expectedVersion) {
+            return submit(() -> model.modifyNews(newsId, newTitle, newBody, expectedVersion));
+        }
+
+        CompletableFuture<Boolean> deleteNews(int newsId) {
+            return submit(() -> model.deleteNews(newsId));
+        }
+
+        CompletableFuture<NewsRow> restoreNews(int newsId) {
+            return submit(() -> model.restoreNews(newsId));
+        }
+
+        CompletableFuture<User> authenticateUser(String username, String password) {
+            return submit(() -> {
+                try {
+                    return model.authenticateUser(username, password);
+                } catch (LoginBlockedException e) {
+                    // Delivered to the caller as the cause, like any other failure.
+                    throw new CompletionException(e);
+                }
+            });
+        }
+
+        CompletableFuture<Boolean> addUser(String name, String email, int age, String password) {
+            return submit(() -> model.addUser(name, email, age, password));
+        }
+
+        CompletableFuture<Boolean> deleteUser(int uId) {
+            return submit(() -> model.deleteUser(uId));
+        }
+
+        CompletableFuture<Boolean> restoreUser(int uId) {
+            return submit(() -> model.restoreUser(uId));
+        }
+
+        CompletableFuture<ArchiveExporter.Report> exportArchive(Path file, Consumer<ArchiveExporter.Report> progress) {
+            return submit(() -> new ArchiveExporter(model).export(file, ArchiveExporter.formatOf(file),
+                    ArchiveExporter.isGzip(file), 0, progress));
+        }
+
+        CompletableFuture<Integer> buildSearchIndex() {
+            return submit(() -> {
+                model.buildSearchIndex();
+                return model.getSearchIndexSize();
+            });
+        }
+
+        CompletableFuture<SearchIndex.Result> search(String query, int limit) {
+            return submit(() -> model.search(query, limit));
+        }
+
+        CompletableFuture<TableData> getAllUsers() {
+            return submit(() -> {
+                try (ResultSet rs = model.getAllUsers()) {
+                    return TableData.read(rs);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    static class NewsData implements AutoCloseable {
+
+        private final DbProfile profile;
+        private final String url;
+        private final ConnectionPool pool;
+        private final BodyCache bodyCache = new BodyCache(AppConfig.getLong("newsdata.bodyCache.maxChars", 8_000_000L));
+        private final FeedCache feedCache = new FeedCache(AppConfig.getLong("newsdata.feedCache.ttlMs", 30_000L));
+        private final SearchIndex searchIndex = new SearchIndex();
+        private final PasswordHasher passwordHasher = PasswordHasher.fromConfig();
+        private final AuthCache authCache = AuthCache.fromConfig();
+        private final LoginGuard loginGuard = LoginGuard.fromConfig();
+        private final AuthorDirectory authors = new AuthorDirectory();
+        private final RevisionStore revisions = new RevisionStore(
+                AppConfig.getInt("newsdata.revisions.checkpointEvery", 10),
+                AppConfig.getBoolean("newsdata.revisions.verify", false));
+
+        /**
+         * Filter for rows joined as news N and user U: neither the article nor its author is
+         * deleted, and the article is not still queued for publishing.
+         */
+        static final String LIVE = "N.Deleted_at IS NULL AND N.Publish_at IS NULL AND U.Deleted_at IS NULL";
+
+        /** Expected version that makes {@link #modifyNews(int, String, String, int)} overwrite unconditionally. */
+        static final int ANY_VERSION = -1;
+
+        public NewsData() {
+            this(DbProfile.fromConfig());
+        }
+
+        private NewsData(DbProfile profile) {
+            this(profile,
+                    AppConfig.get("newsdata.db.url", profile.defaultUrl),
+                    AppConfig.get("newsdata.db.user", profile.defaultUser),
+                    AppConfig.get("newsdata.db.password", profile.defaultPassword));
+        }
+
+        public NewsData(DbProfile profile, String url, String user, String password) {
+            this.profile = profile;
+            this.url = url;
+            this.pool = new ConnectionPool(url, user, password,
+                    AppConfig.getInt("newsdata.pool.minSize", 1),
+                    AppConfig.getInt("newsdata.pool.maxSize", 8),
+                    AppConfig.getLong("newsdata.pool.borrowTimeoutMs", 5_000L),
+                    AppConfig.getLong("newsdata.pool.idleTimeoutMs", 300_000L),
+                    AppConfig.getLong("newsdata.pool.validationIntervalMs", 5_000L),
+                    AppConfig.getInt("newsdata.pool.statementCacheSize", 32));
+        }
+
+        public Connection getConnection() throws SQLException {
+            try {
+                Class.forName(profile.driverClass);
+            } catch (ClassNotFoundException e) {
+                SQLException error = new SQLException("JDBC Driver not found: " + profile.driverClass, e);
+                Metrics.event("driver_missing", "getConnection", error);
+                throw error;
+            }
+            Connection conn = pool.borrow();
+            Metrics.mark("connect");
+            return conn;
+        }
+
+        /** Fetch size for full-archive scans; makes the driver stream rows instead of buffering them all. */
+        int scanFetchSize() {
+            return profile.streamingFetchSize(AppConfig.getInt("newsdata.scan.fetchSize", 1000));
+        }
+
+        /** Rows handed to a {@link ChunkConsumer} at a time by {@link #streamFeed}. */
+        int scanChunkSize() {
+            return Math.max(1, AppConfig.getInt("newsdata.scan.chunkSize", 500));
+        }
+
+        /** Profile and URL for error messages; never includes the password. */
+        public String describe() {
+            return profile.name().toLowerCase(Locale.ROOT) + ", " + url;
+        }
+
+        public BodyCache.Stats getBodyCacheStats() {
+            return bodyCache.getStats();
+        }
+
+        public FeedCache.Stats getFeedCacheStats() {
+            return feedCache.getStats();
+        }
+
+        /** Closes the pool; with summary logging on, first reports the caches and login guard as events. */
+        @Override
+        public void close() {
+            if (Metrics.isLogging()) {
+                Metrics.report("body_cache", bodyCache.getStats());
+                Metrics.report("feed_cache", feedCache.getStats());
+                Metrics.report("login_guard", loginGuard);
+                String summary = Metrics.summary();
+                if (!summary.isEmpty()) {
+                    Metrics.report("metrics", summary);
+                }
+            }
+            pool.close();
+        }
+
+        public boolean testConnection() {
+            try {
+                connect();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Migrates the schema and checks the feed plan. Throws {@link FeedPlanException} when
+         * the database is reachable but the plan has regressed, so callers can say which.
+         */
+        public void connect() throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("testConnection");
+            try (Connection conn = getConnection()) {
+                SchemaMigrator migrator = new SchemaMigrator(profile);
+                migrator.migrate(conn);
+                timer.mark("migrate");
+                if (AppConfig.getBoolean("newsdata.schema.verifyPlan", true)) {
+                    migrator.verifyFeedPlan(conn);
+                    timer.mark("explain");
+                }
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /**
+         * Returns the user if the password matches, null if it does not or the database
+         * fails. The {@link LoginGuard} sees the attempt first; one it turns away throws
+         * LoginBlockedException without running a query. Otherwise the user is looked up by
+         * name and the password verified against the stored hash after the connection is
+         * returned; legacy plaintext rows and hashes made with an older work factor are
+         * rehashed after a successful login, and the outcome is reported back to the guard.
+         */
+        public User authenticateUser(String username, String password) throws LoginBlockedException {
+            loginGuard.check(username, System.nanoTime());
+            Metrics.OpTimer timer = Metrics.start("authenticateUser");
+            String sql = "SELECT U_id, Name, Password FROM user WHERE Name = ? AND Deleted_at IS NULL";
+            try {
+                User user;
+                String stored;
+                try (Connection conn = getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                    pstmt.setString(1, username);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        timer.mark("execute");
+                        if (!rs.next()) {
+                            loginGuard.failed(username, System.nanoTime());
+                            return null;
+                        }
+                        user = new User(rs.getInt("U_id"), rs.getString("Name"));
+                        stored = rs.getString("Password");
+                    }
+                }
+
+                if (authCache.matches(username, stored, password, System.nanoTime())) {
+                    timer.mark("cache");
+                    loginGuard.succeeded(username);
+                    return user;
+                }
+                boolean valid = passwordHasher.verify(password, stored);
+                timer.mark("hash");
+                if (!valid) {
+                    loginGuard.failed(username, System.nanoTime());
+                    return null;
+                }
+                loginGuard.succeeded(username);
+                if (passwordHasher.needsRehash(stored)) {
+                    stored = rehash(user.getId(), stored, password);
+                    timer.mark("rehash");
+                }
+                authCache.put(username, stored, password, System.nanoTime());
+                return user;
+            } catch (SQLException e) {
+                timer.fail(e);
+            } finally {
+                timer.stop();
+            }
+            return null;
+        }
+
+        /** Replaces the stored value unless another login upgraded it first; returns the value now stored. */
+        private String rehash(int uId, String oldValue, String password) throws SQLException {
+            String upgraded = passwordHasher.hash(password);
+            String sql = "UPDATE user SET Password = ? WHERE U_id = ? AND Password = ?";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, upgraded);
+                pstmt.setInt(2, uId);
+                pstmt.setString(3, oldValue);
+                return pstmt.executeUpdate() > 0 ? upgraded : oldValue;
+            }
+        }
+
+        public boolean addUser(String name, String email, int age, String password) {
+            Metrics.OpTimer timer = Metrics.start("addUser");
+            String sql = "INSERT INTO user (Name, Email, Age, Password) VALUES (?, ?, ?, ?)";
+            String hash = passwordHasher.hash(password);
+            timer.mark("hash");
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, name);
+                pstmt.setString(2, email.isEmpty() ? null : email);
+                if (age > 0) {
+                    pstmt.setInt(3, age);
+                } else {
+                    pstmt.setNull(3, Types.INTEGER);
+                }
+                pstmt.setString(4, hash);
+
+                boolean added = pstmt.executeUpdate() > 0;
+                timer.mark("execute");
+                if (added) {
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) authors.put(keys.getInt(1), name);
+                    }
+                }
+                return added;
+            } catch (SQLException e) {
+                timer.fail(e);
+                return false;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Maps every user's Name to U_id, for resolving authors during imports. */
+        public Map<String, Integer> getAuthorIds() throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("getAuthorIds");
+            String sql = "SELECT U_id, Name FROM user WHERE Deleted_at IS NULL";
+            Map<String, Integer> ids = new HashMap<>();
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                timer.mark("execute");
+                while (rs.next()) {
+                    ids.put(rs.getString("Name"), rs.getInt("U_id"));
+                }
+                timer.mark("materialize");
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+            return ids;
+        }
+
+        /** Reloads the author directory with the live users {@link #getAllUsers} lists. */
+        public void refreshAuthors() throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("refreshAuthors");
+            String sql = "SELECT U_id, Name FROM user WHERE Deleted_at IS NULL";
+            Map<Integer, String> live = new HashMap<>();
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                timer.mark("execute");
+                while (rs.next()) {
+                    live.put(rs.getInt("U_id"), rs.getString("Name"));
+                }
+                timer.mark("materialize");
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+            authors.replaceAll(live);
+        }
+
+        /** Live users ordered by name, from the author directory. */
+        public List<User> getAuthors() throws SQLException {
+            if (!authors.isLoaded()) refreshAuthors();
+            return authors.list();
+        }
+
+        /**
+         * Name of a live user, from the author directory; a user it has not seen yet, such
+         * as one added by another client, is looked up once and remembered. Null if there
+         * is no such user.
+         */
+        private String authorName(Connection conn, int uId) throws SQLException {
+            String name = authors.get(uId);
+            if (name != null) return name;
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT Name FROM user WHERE U_id = ? AND Deleted_at IS NULL")) {
+                pstmt.setInt(1, uId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    name = rs.getString(1);
+                }
+            }
+            authors.put(uId, name);
+            return name;
+        }
+
+        /** True while user {@code uId} exists and is not deleted; a directory hit needs no query. */
+        public boolean isLiveUser(int uId) throws SQLException {
+            if (authors.get(uId) != null) return true;
+            try (Connection conn = getConnection()) {
+                return authorName(conn, uId) != null;
+            }
+        }
+
+        public ResultSet getAllUsers() throws SQLException {
+            String sql = "SELECT U_id, Name, Email, Age FROM user WHERE Deleted_at IS NULL ORDER BY U_id ASC";
+
+            return openQuery("getAllUsers", sql);
+        }
+
+        /**
+         * Marks the user deleted; their articles drop out of every query at once. The rows
+         * themselves are removed later, in small batches, by {@link #purgeDeleted}, so this
+         * is a one-row update however much the user wrote, and {@link #restoreUser} can undo
+         * it until then.
+         */
+        public boolean deleteUser(int uId) {
+            Metrics.OpTimer timer = Metrics.start("deleteUser");
+            String sql = "UPDATE user SET Deleted_at = ? WHERE U_id = ? AND Deleted_at IS NULL";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                conn.setAutoCommit(false);
+                String name = getUserName(conn, uId);
+                pstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+                pstmt.setInt(2, uId);
+                boolean deleted = pstmt.executeUpdate() > 0;
+                if (deleted) {
+                    logChange(conn, FeedChange.Op.DELETE_USER, null, uId, name);
+                }
+                conn.commit();
+                if (deleted) {
+                    authors.remove(uId);
+                    searchIndex.removeByAuthor(uId);
+                }
+                if (name != null) {
+                    authCache.invalidate(name);
+                }
+                timer.mark("execute");
+                return deleted;
+            } catch (SQLException e) {
+                timer.fail(e);
+                return false;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Undoes {@link #deleteUser} if the user has not been purged yet; false if it is too late. */
+        public boolean restoreUser(int uId) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("restoreUser");
+            String sql = "UPDATE user SET Deleted_at = NULL WHERE U_id = ? AND Deleted_at IS NOT NULL";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                conn.setAutoCommit(false);
+                pstmt.setInt(1, uId);
+                boolean restored = pstmt.executeUpdate() > 0;
+                if (restored) {
+                    // Every client has to fetch the user's articles again, so this is a reload.
+                    logChange(conn, FeedChange.Op.RELOAD, null, null);
+                }
+                String name = restored ? getUserName(conn, uId) : null;
+                conn.commit();
+                if (name != null) {
+                    authors.put(uId, name);
+                }
+                timer.mark("execute");
+                return restored;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Inserts an article and returns its feed row, or null if the insert failed. */
+        public NewsRow addNews(String title, String body, int uId) {
+            Metrics.OpTimer timer = Metrics.start("addNews");
+            String sql = "INSERT INTO news (Title, Body, Created_at, U_id) VALUES (?, ?, ?, ?)";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, title);
+                pstmt.setString(2, body);
+                pstmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+                pstmt.setInt(4, uId);
+
+                conn.setAutoCommit(false);
+                if (pstmt.executeUpdate() == 0) {
+                    return null;
+                }
+                NewsRow row;
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    row = keys.next() ? getNewsRow(conn, keys.getInt(1)) : null;
+                }
+                if (row != null) {
+                    logChange(conn, FeedChange.Op.ADD, row.getNewsId(), null);
+                }
+                conn.commit();
+                timer.mark("execute");
+                if (row != null) {
+                    searchIndex.put(row, body);
+                    timer.mark("index");
+                }
+                return row;
+            } catch (SQLException e) {
+                timer.fail(e);
+                return null;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /**
+         * Queues an article to go live at {@code publishAt}; until a {@link PublishScheduler}
+         * promotes it, it is left out of every query that lists or reads articles. Its
+         * Created_at is the publish time already, so it lands at that position in the feed,
+         * and first pages, which only read Created_at up to now, never scan past it.
+         * Returns the new News_id, or -1 if the insert failed.
+         */
+        public int scheduleNews(String title, String body, int uId, Timestamp publishAt) {
+            Metrics.OpTimer timer = Metrics.start("scheduleNews");
+            String sql = "INSERT INTO news (Title, Body, Created_at, Publish_at, U_id) VALUES (?, ?, ?, ?, ?)";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, title);
+                pstmt.setString(2, body);
+                pstmt.setTimestamp(3, publishAt);
+                pstmt.setTimestamp(4, publishAt);
+                pstmt.setInt(5, uId);
+                pstmt.executeUpdate();
+                timer.mark("execute");
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : -1;
+                }
+            } catch (SQLException e) {
+                timer.fail(e);
+                return -1;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Distinct publish times of the articles still queued, earliest first. */
+        public List<Timestamp> getPendingPublishTimes() throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("getPendingPublishTimes");
+            String sql = "SELECT DISTINCT Publish_at FROM news WHERE Publish_at IS NOT NULL AND Deleted_at IS NULL ORDER BY Publish_at";
+            List<Timestamp> times = new ArrayList<>();
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                timer.mark("execute");
+                while (rs.next()) {
+                    times.add(rs.getTimestamp(1));
+                }
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+            return times;
+        }
+
+        /**
+         * Puts up to {@code batchSize} queued articles due by {@code now} live in one
+         * transaction, logging an ADD for each, so clients (and every process's search
+         * index) pick them up from the change log like any new article. Several processes
+         * may run this at once: the conditional update lets only the first promote, and
+         * log, a given article. Returns the number this call promoted.
+         */
+        public int publishDue(Timestamp now, int batchSize) throws SQLException {
+            String due = "SELECT News_id FROM news WHERE Publish_at <= ? AND Deleted_at IS NULL " +
+                    "ORDER BY Publish_at, News_id LIMIT ?";
+            String promote = "UPDATE news SET Publish_at = NULL WHERE News_id = ? AND Publish_at IS NOT NULL";
+
+            Metrics.OpTimer timer = Metrics.start("publishDue");
+            try (Connection conn = getConnection()) {
+                conn.setAutoCommit(false);
+                List<Integer> ids = new ArrayList<>(batchSize);
+                try (PreparedStatement pstmt = conn.prepareStatement(due)) {
+                    pstmt.setTimestamp(1, now);
+                    pstmt.setInt(2, batchSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
+                }
+                timer.mark("select");
+                int promoted = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(promote)) {
+                    for (int newsId : ids) {
+                        pstmt.setInt(1, newsId);
+                        if (pstmt.executeUpdate() > 0) {
+                            logChange(conn, FeedChange.Op.ADD, newsId, null);
+                            promoted++;
+                        }
+                    }
+                }
+                conn.commit();
+                timer.mark("promote");
+                return promoted;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        private NewsRow getNewsRow(Connection conn, int newsId) throws SQLException {
+            String sql = "SELECT N.News_id, N.Title, N.Created_at, N.U_id, U.Name AS Author_Name " +
+                    "FROM news N JOIN user U ON N.U_id = U.U_id WHERE N.News_id = ? AND " + LIVE;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, newsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new NewsRow(rs.getInt("News_id"), rs.getString("Title"),
+                                rs.getTimestamp("Created_at"), rs.getInt("U_id"), rs.getString("Author_Name"));
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String getUserName(Connection conn, int uId) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT Name FROM user WHERE U_id = ?")) {
+                pstmt.setInt(1, uId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            }
+        }
+
+        /** Appends to change_log inside the caller's transaction, so the entry commits with the change. */
+        private void logChange(Connection conn, FeedChange.Op op, Integer newsId, String authorName) throws SQLException {
+            logChange(conn, op, newsId, null, authorName);
+        }
+
+        private void logChange(Connection conn, FeedChange.Op op, Integer newsId, Integer uId, String authorName) throws SQLException {
+            String sql = "INSERT INTO change_log (Op, News_id, U_id, Author_Name, Changed_at) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, op.name());
+                if (newsId != null) {
+                    pstmt.setInt(2, newsId);
+                } else {
+                    pstmt.setNull(2, Types.INTEGER);
+                }
+                if (uId != null) {
+                    pstmt.setInt(3, uId);
+                } else {
+                    pstmt.setNull(3, Types.INTEGER);
+                }
+                pstmt.setString(4, authorName);
+                pstmt.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+                pstmt.executeUpdate();
+            }
+        }
+
+        /** Tells other clients to reload everything, e.g. after a bulk import. */
+        public void logReload() throws SQLException {
+            try (Connection conn = getConnection()) {
+                logChange(conn, FeedChange.Op.RELOAD, null, null);
+            }
+        }
+
+        public long getLatestChangeSeq() throws SQLException {
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT MAX(Seq) FROM change_log");
+                 ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        }
+
+        /**
+         * Reads the change-log position first and the first feed page second, so any change
+         * that commits in between is delivered again by the next poll rather than lost.
+         */
+        public FeedHead getFeedHead(int limit) throws SQLException {
+            long seq = getLatestChangeSeq();
+            return new FeedHead(seq, getFirstPage(seq, limit));
+        }
+
+        /**
+         * The newest {@code limit} feed rows as of change-log position {@code seq}, which the
+         * caller has just read. Served from the feed cache when nothing has been logged
+         * since the cached page was read, so a refresh costs one MAX(Seq) probe.
+         */
+        public List<NewsRow> getFirstPage(long seq, int limit) throws SQLException {
+            long now = System.nanoTime();
+            List<NewsRow> cached = feedCache.get(seq, limit, now);
+            if (cached != null) {
+                return cached;
+            }
+            List<NewsRow> page = getNewsPage(null, limit);
+            feedCache.put(seq, limit, page, now);
+            return page;
+        }
+
+        /** {@link #getFeedHead} for one author's articles. */
+        public FeedHead getAuthorFeedHead(int uId, int limit) throws SQLException {
+            long seq = getLatestChangeSeq();
+            return new FeedHead(seq, getAuthorPage(uId, null, limit));
+        }
+
+        /**
+         * Returns up to {@code limit} change-log entries with Seq above {@code seq}, each
+         * joined to the article's current row, and brings the local search index and body
+         * cache up to date with them. One indexed range read on the Seq primary key.
+         */
+        public List<FeedChange> getChangesSince(long seq, int limit) throws SQLException {
+            String sql = "SELECT C.Seq, C.Op, C.News_id, C.U_id, C.Author_Name, N.Title, N.Body, N.Created_at, N.U_id AS News_Author_id, U.Name AS News_Author " +
+                    "FROM change_log C LEFT JOIN news N ON N.News_id = C.News_id AND N.Deleted_at IS NULL AND N.Publish_at IS NULL " +
+                    "LEFT JOIN user U ON U.U_id = N.U_id AND U.Deleted_at IS NULL " +
+                    "WHERE C.Seq > ? ORDER BY C.Seq LIMIT ?";
+
+            Metrics.OpTimer timer = Metrics.start("getChangesSince");
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setLong(1, seq);
+                pstmt.setInt(2, limit);
+                List<FeedChange> changes = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    timer.mark("execute");
+                    while (rs.next()) {
+                        FeedChange.Op op = FeedChange.Op.valueOf(rs.getString("Op"));
+                        int newsId = rs.getInt("News_id");
+                        if (op == FeedChange.Op.DELETE_USER || op == FeedChange.Op.RELOAD) {
+                            // Users came or went; reload the directory before the next page is named.
+                            authors.invalidate();
+                        }
+                        if (op == FeedChange.Op.DELETE_USER) {
+                            authors.remove(rs.getInt("U_id"));
+                            searchIndex.removeByAuthor(rs.getInt("U_id"));
+                        }
+                        NewsRow row = null;
+                        if (rs.getString("News_Author") != null) {
+                            row = new NewsRow(newsId, rs.getString("Title"), rs.getTimestamp("Created_at"),
+                                    rs.getInt("News_Author_id"), rs.getString("News_Author"));
+                            if (op != FeedChange.Op.DELETE) {
+                                searchIndex.put(row, rs.getString("Body"));
+                            }
+                        } else if (newsId != 0) {
+                            searchIndex.remove(newsId);
+                        }
+                        if (newsId != 0) {
+                            bodyCache.invalidate(newsId);
+                        }
+                        changes.add(new FeedChange(rs.getLong("Seq"), op, newsId, rs.getInt("U_id"), rs.getString("Author_Name"), row));
+                    }
+                    timer.mark("materialize");
+                }
+                return changes;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        public ResultSet getAllNews() throws SQLException {
+            return openQuery("getAllNews", ALL_NEWS_SQL);
+        }
+
+        private static final String ALL_NEWS_SQL = "SELECT N.News_id, N.Title, N.Created_at, N.U_id, U.Name AS Author_Name " +
+                "FROM news N JOIN user U ON N.U_id = U.U_id WHERE " + LIVE + " " +
+                "ORDER BY N.Created_at DESC, N.News_id DESC";
+
+        public long streamFeed(ChunkConsumer<NewsRow> consumer) throws SQLException, IOException {
+            return streamFeed(scanChunkSize(), consumer);
+        }
+
+        /**
+         * Reads every live article in feed order through a forward-only cursor and hands
+         * the rows to {@code consumer} {@code chunkSize} at a time, so only one chunk plus
+         * the driver's fetch window is ever held in memory. Returns the number of rows read.
+         * The scan stops with an InterruptedIOException if the calling thread is interrupted.
+         */
+        public long streamFeed(int chunkSize, ChunkConsumer<NewsRow> consumer) throws SQLException, IOException {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be >= 1");
+            }
+            Metrics.OpTimer timer = Metrics.start("streamFeed");
+            List<NewsRow> chunk = new ArrayList<>(chunkSize);
+            long rows = 0;
+            try (Connection conn = getConnection();
+                 Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                stmt.setFetchSize(scanFetchSize());
+                try (ResultSet rs = stmt.executeQuery(ALL_NEWS_SQL)) {
+                    timer.mark("execute");
+                    while (rs.next()) {
+                        chunk.add(new NewsRow(rs.getInt("News_id"), rs.getString("Title"),
+                                rs.getTimestamp("Created_at"), rs.getInt("U_id"), rs.getString("Author_Name")));
+                        if (chunk.size() == chunkSize) {
+                            rows += deliver(chunk, consumer);
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        rows += deliver(chunk, consumer);
+                    }
+                    timer.mark("consume");
+                }
+            } catch (SQLException | IOException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+            return rows;
+        }
+
+        private static <T> int deliver(List<T> chunk, ChunkConsumer<T> consumer) throws SQLException, IOException {
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Scan cancelled");
+            }
+            int size = chunk.size();
+            consumer.accept(chunk);
+            chunk.clear();
+            return size;
+        }
+
+        /**
+         * Feed page query, taking (Created_at bound, [Created_at, News_id,] limit): the bound
+         * is the cursor's Created_at for a keyset page and now for the first page, since
+         * articles queued for publishing already carry their future publish time. The page is
+         * read from {@code news} alone, straight off {@link SchemaMigrator#FEED_INDEX}, and
+         * returns U_id; authors are named from the {@link AuthorDirectory} instead of a join.
+         * The leading {@code Created_at <= ?} gives the planner a range to seek to. Tombstones,
+         * and articles by deleted users, are filtered inside the page so it still comes back full;
+         * the index hint stops the planner from reading {@code Deleted_at IS NULL} off
+         * {@link SchemaMigrator#DELETED_INDEX}, which matches nearly every row.
+         */
+        static String feedPageSql(boolean keyset) {
+            return pageSql(SchemaMigrator.FEED_INDEX, "", keyset);
+        }
+
+        /**
+         * One author's page, read off {@link SchemaMigrator#AUTHOR_INDEX}: the U_id equality
+         * and the Created_at range seek into a single author's slice of the index, so it costs
+         * the same for an author with fifty articles as for one with fifty thousand. Takes
+         * U_id first, then the same parameters as {@link #feedPageSql}.
+         */
+        static String authorPageSql(boolean keyset) {
+            return pageSql(SchemaMigrator.AUTHOR_INDEX, "U_id = ? AND ", keyset);
+        }
+
+        private static String pageSql(String index, String author, boolean keyset) {
+            return "SELECT News_id, Title, Created_at, U_id FROM news USE INDEX (" + index + ") " +
+                    "WHERE " + author + "Deleted_at IS NULL AND Publish_at IS NULL " +
+                    "AND U_id NOT IN (SELECT U_id FROM user WHERE Deleted_at IS NOT NULL) " +
+                    "AND Created_at <= ? " + (keyset ? "AND (Created_at < ? OR News_id < ?) " : "") +
+                    "ORDER BY Created_at DESC, News_id DESC LIMIT ?";
+        }
+
+        /**
+         * Returns up to {@code limit} feed rows strictly older than {@code after} in
+         * (Created_at DESC, News_id DESC) order, or the newest rows when {@code after} is null.
+         * Seeking by cursor keeps every page as cheap as the first, unlike OFFSET.
+         */
+        public List<NewsRow> getNewsPage(FeedCursor after, int limit) throws SQLException {
+            return readPage("getNewsPage", feedPageSql(after != null), null, after, limit);
+        }
+
+        /** Like {@link #getNewsPage}, but only the articles written by user {@code uId}. */
+        public List<NewsRow> getAuthorPage(int uId, FeedCursor after, int limit) throws SQLException {
+            return readPage("getAuthorPage", authorPageSql(after != null), uId, after, limit);
+        }
+
+        private static final String UNKNOWN_AUTHOR = "(deleted user)";
+
+        private List<NewsRow> readPage(String operation, String sql, Integer uId, FeedCursor after, int limit)
+                throws SQLException {
+            if (!authors.isLoaded()) {
+                refreshAuthors();
+            }
+            Metrics.OpTimer timer = Metrics.start(operation);
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                int i = 1;
+                if (uId != null) {
+                    pstmt.setInt(i++, uId);
+                }
+                if (after != null) {
+                    pstmt.setTimestamp(i++, after.getCreatedAt());
+                    pstmt.setTimestamp(i++, after.getCreatedAt());
+                    pstmt.setInt(i++, after.getNewsId());
+                } else {
+                    pstmt.setTimestamp(i++, new Timestamp(System.currentTimeMillis()));
+                }
+                pstmt.setInt(i, limit);
+
+                List<NewsRow> page = new ArrayList<>(limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    timer.mark("execute");
+                    while (rs.next()) {
+                        int authorId = rs.getInt("U_id");
+                        String author = authorName(conn, authorId);
+                        if (author == null) {
+                            // Deleted since the page was read. Keep the row, so a short page still
+                            // means the end of the feed; the DELETE_USER change removes it shortly.
+                            author = getUserName(conn, authorId);
+                            if (author == null) author = UNKNOWN_AUTHOR;
+                        }
+                        page.add(new NewsRow(rs.getInt("News_id"), rs.getString("Title"),
+                                rs.getTimestamp("Created_at"), authorId, author));
+                    }
+                    timer.mark("materialize");
+                }
+                return page;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /**
+         * Indexes every article for {@link #search}. Streams the archive forward-only so
+         * the driver does not buffer the whole table; safe to run while edits happen.
+         */
+        public void buildSearchIndex() throws SQLException {
+            String sql = "SELECT N.News_id, N.Title, N.Body, N.Created_at, N.U_id, U.Name AS Author_Name " +
+                    "FROM news N JOIN user U ON N.U_id = U.U_id WHERE " + LIVE;
+
+            Metrics.OpTimer timer = Metrics.start("buildSearchIndex");
+            searchIndex.beginBuild();
+            try (Connection conn = getConnection();
+                 Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                stmt.setFetchSize(scanFetchSize());
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    timer.mark("execute");
+                    while (rs.next()) {
+                        NewsRow row = new NewsRow(rs.getInt("News_id"), rs.getString("Title"),
+                                rs.getTimestamp("Created_at"), rs.getInt("U_id"), rs.getString("Author_Name"));
+                        searchIndex.addIfAbsent(row, rs.getString("Body"));
+                    }
+                    timer.mark("index");
+                }
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                searchIndex.finishBuild();
+                timer.stop();
+            }
+        }
+
+        public SearchIndex.Result search(String query, int limit) {
+            Metrics.OpTimer timer = Metrics.start("search");
+            try {
+                return searchIndex.search(query, limit);
+            } finally {
+                timer.stop();
+            }
+        }
+
+        public int getSearchIndexSize() {
+            return searchIndex.size();
+        }
+
+        /**
+         * Runs a query whose ResultSet outlives this method. Closing the returned
+         * ResultSet also closes its Statement and hands the Connection back to the pool.
+         * Only connect and execute are timed here; reading the rows is up to the caller.
+         * The cursor is forward-only with the scan fetch size, so the driver streams rows
+         * instead of buffering the whole result; read it once, front to back.
+         */
+        private ResultSet openQuery(String operation, String sql) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start(operation);
+            Connection conn = null;
+            Statement stmt = null;
+            try {
+                conn = getConnection();
+                stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                stmt.setFetchSize(scanFetchSize());
+                ResultSet rs = stmt.executeQuery(sql);
+                timer.mark("execute");
+                return ConnectionPool.closingResultSet(rs, stmt, conn);
+            } catch (SQLException e) {
+                timer.fail(e);
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        public String getNewsBody(int newsId) {
+            try {
+                String body = findNewsBody(newsId);
+                if (body != null) {
+                    return body;
+                }
+            } catch (SQLException e) {
+                // Already recorded against getNewsBody by findNewsBody.
+            }
+            return "Error: Could not retrieve news body.";
+        }
+
+        /** Body of one article, read through the body cache; null if there is no such article. */
+        public String findNewsBody(int newsId) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("getNewsBody");
+            long generation = bodyCache.generation();
+            String cached = bodyCache.get(newsId);
+            if (cached != null) {
+                timer.mark("cache");
+                timer.stop();
+                return cached;
+            }
+
+            String sql = "SELECT N.Body FROM news N JOIN user U ON N.U_id = U.U_id WHERE N.News_id = ? AND " + LIVE;
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setInt(1, newsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    timer.mark("execute");
+                    if (rs.next()) {
+                        String body = rs.getString("Body");
+                        bodyCache.put(newsId, body, generation);
+                        return body;
+                    }
+                }
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+            return null;
+        }
+
+        /**
+         * Feed row for one article, from the search index when it has it and its author is
+         * still in the author directory; null if there is no such article. A deleted user
+         * leaves the directory at once, so their rows are checked against the database.
+         */
+        public NewsRow findNewsRow(int newsId) throws SQLException {
+            NewsRow row = searchIndex.getRow(newsId);
+            if (row != null && authors.get(row.getAuthorId()) != null) {
+                return row;
+            }
+            try (Connection conn = getConnection()) {
+                return getNewsRow(conn, newsId);
+            }
+        }
+
+        /** Row, body and version of one article, read from the database; null if there is no such article. */
+        public Article findArticle(int newsId) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("findArticle");
+            try (Connection conn = getConnection()) {
+                Article article = readArticle(conn, newsId);
+                timer.mark("execute");
+                return article;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        private Article readArticle(Connection conn, int newsId) throws SQLException {
+            String sql = "SELECT N.News_id, N.Title, N.Created_at, N.U_id, U.Name AS Author_Name, N.Body, N.Version " +
+                    "FROM news N JOIN user U ON N.U_id = U.U_id WHERE N.News_id = ? AND " + LIVE;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, newsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        NewsRow row = new NewsRow(rs.getInt("News_id"), rs.getString("Title"),
+                                rs.getTimestamp("Created_at"), rs.getInt("U_id"), rs.getString("Author_Name"));
+                        return new Article(row, rs.getString("Body"), rs.getInt("Version"));
+                    }
+                }
+            }
+            return null;
+        }
+
+        /** Saves an edit whatever version is stored (last writer wins); still bumps the version. */
+        public boolean modifyNews(int newsId, String newTitle, String newBody) {
+            try {
+                return modifyNews(newsId, newTitle, newBody, ANY_VERSION).status == ModifyResult.Status.UPDATED;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Saves an edit only if the article is still at {@code expectedVersion}, bumping the
+         * version in the same UPDATE, so no lock is held while the user is editing. When the
+         * version has moved on, the current article comes back as a CONFLICT for the caller
+         * to merge and retry. {@link #ANY_VERSION} overwrites whatever is there, retrying the
+         * compare-and-set until it lands. The replaced version goes into the revision history
+         * in the same transaction.
+         */
+        public ModifyResult modifyNews(int newsId, String newTitle, String newBody, int expectedVersion) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("modifyNews");
+            String sql = "UPDATE news SET Title = ?, Body = ?, Version = Version + 1 WHERE News_id = ? AND Version = ? AND Deleted_at IS NULL";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                conn.setAutoCommit(false);
+                Article old;
+                while (true) {
+                    old = readArticle(conn, newsId);
+                    if (old != null && (expectedVersion == ANY_VERSION || old.getVersion() == expectedVersion)) {
+                        pstmt.setString(1, newTitle);
+                        pstmt.setString(2, newBody);
+                        pstmt.setInt(3, newsId);
+                        pstmt.setInt(4, old.getVersion());
+                        if (pstmt.executeUpdate() > 0) break;
+                        // Someone saved between the read and the update.
+                        conn.rollback();
+                        if (expectedVersion == ANY_VERSION) continue;
+                        old = readArticle(conn, newsId);
+                    }
+                    conn.rollback();
+                    timer.mark("execute");
+                    if (old == null) {
+                        return new ModifyResult(ModifyResult.Status.NOT_FOUND, null);
+                    }
+                    Metrics.event("edit_conflict", "modifyNews " + newsId, null);
+                    return new ModifyResult(ModifyResult.Status.CONFLICT, old);
+                }
+                timer.mark("execute");
+                revisions.record(conn, old, newTitle, newBody);
+                timer.mark("revision");
+                logChange(conn, FeedChange.Op.MODIFY, newsId, null);
+                conn.commit();
+                timer.mark("execute");
+                NewsRow row = old.getRow().withTitle(newTitle);
+                searchIndex.put(row, newBody);
+                timer.mark("index");
+                return new ModifyResult(ModifyResult.Status.UPDATED, new Article(row, newBody, old.getVersion() + 1));
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                bodyCache.invalidate(newsId);
+                timer.stop();
+            }
+        }
+
+        /** Saved versions of an article, newest first; empty until it is first edited. */
+        public List<Revision> getRevisions(int newsId) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("getRevisions");
+            try (Connection conn = getConnection()) {
+                List<Revision> list = revisions.list(conn, newsId);
+                timer.mark("execute");
+                return list;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Body of one saved version, rebuilt from its checkpoint; null if there is no such version. */
+        public String getRevisionBody(int newsId, int version) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("getRevisionBody");
+            try (Connection conn = getConnection()) {
+                String body = revisions.rebuild(conn, newsId, version);
+                timer.mark("execute");
+                return body;
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Marks the article deleted; {@link #restoreNews} can bring it back until it is purged. */
+        public boolean deleteNews(int newsId) {
+            Metrics.OpTimer timer = Metrics.start("deleteNews");
+            String sql = "UPDATE news SET Deleted_at = ? WHERE News_id = ? AND Deleted_at IS NULL";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                conn.setAutoCommit(false);
+                pstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+                pstmt.setInt(2, newsId);
+                boolean deleted = pstmt.executeUpdate() > 0;
+                if (deleted) {
+                    logChange(conn, FeedChange.Op.DELETE, newsId, null);
+                }
+                conn.commit();
+                timer.mark("execute");
+                if (deleted) {
+                    searchIndex.remove(newsId);
+                }
+                return deleted;
+            } catch (SQLException e) {
+                timer.fail(e);
+                return false;
+            } finally {
+                bodyCache.invalidate(newsId);
+                timer.stop();
+            }
+        }
+
+        /** Undoes {@link #deleteNews}; returns the article's feed row, or null if it was already purged. */
+        public NewsRow restoreNews(int newsId) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("restoreNews");
+            String sql = "UPDATE news SET Deleted_at = NULL WHERE News_id = ? AND Deleted_at IS NOT NULL";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                conn.setAutoCommit(false);
+                pstmt.setInt(1, newsId);
+                Article article = pstmt.executeUpdate() > 0 ? readArticle(conn, newsId) : null;
+                if (article != null) {
+                    logChange(conn, FeedChange.Op.ADD, newsId, null);
+                }
+                conn.commit();
+                timer.mark("execute");
+                if (article == null) {
+                    return null;
+                }
+                searchIndex.put(article.getRow(), article.getBody());
+                timer.mark("index");
+                return article.getRow();
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        /** Re-checks a purge candidate's tombstones, or its author's, against the cutoff. */
+        private static final String PURGEABLE = "(Deleted_at < ? OR U_id IN (SELECT U_id FROM user WHERE Deleted_at < ?))";
+
+        /**
+         * Hard-deletes up to {@code batchSize} articles deleted before {@code cutoff}, or
+         * written by users deleted before it, in one short transaction; once a deleted user
+         * has no articles left, their row goes too. Returns how many articles were picked,
+         * so callers repeat until it comes back below {@code batchSize}.
+         * <p>
+         * The candidates are read before the transaction starts, so each DELETE checks the
+         * tombstone again: an article or user restored in between keeps its row and history.
+         */
+        public int purgeDeleted(Timestamp cutoff, int batchSize) throws SQLException {
+            Metrics.OpTimer timer = Metrics.start("purgeDeleted");
+            try (Connection conn = getConnection()) {
+                List<Integer> ids = new ArrayList<>(batchSize);
+                collectIds(conn, "SELECT News_id FROM news WHERE Deleted_at < ? LIMIT ?", cutoff, batchSize, ids);
+                if (ids.size() < batchSize) {
+                    collectIds(conn, "SELECT N.News_id FROM user U JOIN news N ON N.U_id = U.U_id WHERE U.Deleted_at < ? LIMIT ?",
+                            cutoff, batchSize - ids.size(), ids);
+                }
+                timer.mark("execute");
+
+                conn.setAutoCommit(false);
+                if (!ids.isEmpty()) {
+                    try (PreparedStatement history = conn.prepareStatement("DELETE FROM news_revision WHERE News_id = ? AND News_id IN "
+                                 + "(SELECT News_id FROM news WHERE News_id = ? AND " + PURGEABLE + ")");
+                         PreparedStatement pstmt = conn.prepareStatement("DELETE FROM news WHERE News_id = ? AND " + PURGEABLE)) {
+                        for (int id : ids) {
+                            history.setInt(1, id);
+                            history.setInt(2, id);
+                            history.setTimestamp(3, cutoff);
+                            history.setTimestamp(4, cutoff);
+                            history.addBatch();
+                            pstmt.setInt(1, id);
+                            pstmt.setTimestamp(2, cutoff);
+                            pstmt.setTimestamp(3, cutoff);
+                            pstmt.addBatch();
+                        }
+                        history.executeBatch();
+                        pstmt.executeBatch();
+                    }
+                }
+                if (ids.size() < batchSize) {
+                    List<Integer> users = new ArrayList<>();
+                    collectIds(conn, "SELECT U_id FROM user WHERE Deleted_at < ? LIMIT ?", cutoff, batchSize, users);
+                    try (PreparedStatement remaining = conn.prepareStatement("SELECT 1 FROM news WHERE U_id = ? LIMIT 1");
+                         PreparedStatement delete = conn.prepareStatement("DELETE FROM user WHERE U_id = ? AND Deleted_at < ?")) {
+                        for (int uId : users) {
+                            remaining.setInt(1, uId);
+                            try (ResultSet rs = remaining.executeQuery()) {
+                                if (rs.next()) continue;
+                            }
+                            delete.setInt(1, uId);
+                            delete.setTimestamp(2, cutoff);
+                            delete.executeUpdate();
+                        }
+                    }
+                }
+                conn.commit();
+                timer.mark("execute");
+                return ids.size();
+            } catch (SQLException e) {
+                timer.fail(e);
+                throw e;
+            } finally {
+                timer.stop();
+            }
+        }
+
+        private static void collectIds(Connection conn, String sql, Timestamp cutoff, int limit, List<Integer> ids) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setTimestamp(1, cutoff);
+                pstmt.setInt(2, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes soft-deleted articles and users for good once their undo window has passed.
+     * Each batch is its own short transaction with a pause after it, so purging a prolific
+     * author never holds long locks on {@code news} or starves interactive writes. Runs on
+     * one daemon thread; a failed run is recorded and retried on the next tick.
+     */
+    static final class TombstonePurger implements AutoCloseable {
+        private final NewsData model;
+        private final ScheduledExecutorService scheduler;
+        private final long undoMillis = TimeUnit.SECONDS.toMillis(AppConfig.getLong("newsdata.delete.undoSeconds", 30L));
+        private final int batchSize = AppConfig.getInt("newsdata.purge.batchSize", 500);
+        private final long pauseMillis = AppConfig.getLong("newsdata.purge.pauseMs", 50L);
+
+        TombstonePurger(NewsData model) {
+            this.model = model;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "newsdata-purge");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /** Schedules purging every {@code newsdata.purge.intervalMs}; 0 turns it off. */
+        TombstonePurger start() {
+            long intervalMs = AppConfig.getLong("newsdata.purge.intervalMs", 60_000L);
+            if (intervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::purge, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            }
+            return this;
+        }
+
+        /** Purges everything past its undo window; returns the number of articles removed. */
+        int purge() {
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - undoMillis);
+            int total = 0;
+            try {
+                int purged;
+                do {
+                    purged = model.purgeDeleted(cutoff, batchSize);
+                    total += purged;
+                    if (purged == batchSize) {
+                        Thread.sleep(pauseMillis);
+                    }
+                } while (purged == batchSize);
+            } catch (SQLException e) {
+                // Recorded by purgeDeleted; the next tick starts over.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (total > 0) {
+                Metrics.event("purged", "purgeDeleted " + total + " articles", null);
+            }
+            return total;
+        }
+
+        long getUndoMillis() {
+            return undoMillis;
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Puts queued articles live at their Publish_at. Pending publish times wait in a
+     * DelayQueue, one entry per distinct time however many articles share it, so a morning
+     * drop of thousands of stories is a single wake-up that promotes them in transactions of
+     * {@code newsdata.publish.batchSize}. Clients then take them in through the change log as
+     * ordinary ADD entries, a poll batch at a time, instead of all reloading the feed at once.
+     * Pending times are reloaded from the database at start and every
+     * {@code newsdata.publish.rescanMs}, which carries the queue across restarts and picks up
+     * articles queued by other clients.
+     */
+    static final class PublishScheduler implements AutoCloseable {
+        private static final class Due implements Delayed {
+            final long at;
+
+            Due(long at) {
+                this.at = at;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                return unit.convert(at - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                return Long.compare(at, ((Due) other).at);
+            }
+        }
+
+        private final NewsData model;
+        private final DelayQueue<Due> queue = new DelayQueue<>();
+        private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+        private final int batchSize = AppConfig.getInt("newsdata.publish.batchSize", 500);
+        private final long pauseMillis = AppConfig.getLong("newsdata.publish.pauseMs", 50L);
+        private final long rescanMillis = AppConfig.getLong("newsdata.publish.rescanMs", 60_000L);
+        private final Thread worker;
+
+        PublishScheduler(NewsData model) {
+            this.model = model;
+            this.worker = new Thread(this::run, "newsdata-publish");
+            this.worker.setDaemon(true);
+        }
+
+        PublishScheduler start() {
+            worker.start();
+            return this;
+        }
+
+        /** Wakes the scheduler at {@code publishAt}; a time already waiting is not queued twice. */
+        void schedule(Timestamp publishAt) {
+            long at = publishAt.getTime();
+            if (queued.add(at)) {
+                queue.add(new Due(at));
+            }
+        }
+
+        int pending() {
+            return queued.size();
+        }
+
+        private void run() {
+            long nextRescan = System.currentTimeMillis();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    long now = System.currentTimeMillis();
+                    if (now >= nextRescan) {
+                        reload();
+                        nextRescan = rescanMillis > 0 ? now + rescanMillis : Long.MAX_VALUE;
+                    }
+                    Due due = queue.poll(nextRescan - now, TimeUnit.MILLISECONDS);
+                    if (due == null) continue;
+                    // Everything else already due goes out with it.
+                    for (Due next = due; next != null; next = queue.poll()) {
+                        queued.remove(next.at);
+                    }
+                    publish();
+                }
+            } catch (InterruptedException e) {
+                // Closed.
+            }
+        }
+
+        private void reload() {
+            try {
+                for (Timestamp publishAt : model.getPendingPublishTimes()) {
+                    schedule(publishAt);
+                }
+            } catch (SQLException e) {
+                // Recorded by getPendingPublishTimes; the next rescan tries again.
+            }
+        }
+
+        /** Promotes every article due by now; returns how many this process put live. */
+        int publish() throws InterruptedException {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            int total = 0;
+            try {
+                int promoted;
+                while ((promoted = model.publishDue(now, batchSize)) > 0) {
+                    total += promoted;
+                    Thread.sleep(pauseMillis);
+                }
+            } catch (SQLException e) {
+                // Recorded by publishDue; the articles stay queued until the next rescan.
+            }
+            if (total > 0) {
+                Metrics.event("published", "publishDue " + total + " articles", null);
+            }
+            return total;
+        }
+
+        @Override
+        public void close() {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Article history in {@code news_revision}, one row per version. Most rows hold a
+     * delta against the previous version: runs copied from the old body plus inserted
+     * text, deflated. Every {@code checkpointEvery} versions a full (deflated) copy is
+     * stored instead, so rebuilding any version reads and applies at most that many rows.
+     * History starts at an article's first edit, which also stores the version it replaced.
+     * <p>
+     * The codec's round trip is covered by RevisionStoreTest. With {@code verify} on
+     * ({@code newsdata.revisions.verify}), every row is also decoded again and compared
+     * with its text before it is written: a delta that does not rebuild its version is
+     * stored as a checkpoint instead, and a checkpoint that does not fails the edit.
+     */
+    static final class RevisionStore {
+        private static final int BLOCK = 16;
+        private static final int COPY = 1;
+        private static final int INSERT = 2;
+
+        private final int checkpointEvery;
+        private final boolean verify;
+
+        RevisionStore(int checkpointEvery, boolean verify) {
+            this.checkpointEvery = Math.max(1, checkpointEvery);
+            this.verify = verify;
+        }
+
+        /** Stores the edit replacing {@code old}; runs inside the caller's transaction. */
+        void record(Connection conn, Article old, String newTitle, String newBody) throws SQLException {
+            int newsId = old.getRow().getNewsId();
+            int lastCheckpoint = -1;
+            boolean hasOld = false;
+            String sql = "SELECT MAX(CASE WHEN Kind = 'F' THEN Version END), MAX(CASE WHEN Version = ? THEN 1 ELSE 0 END) "
+                    + "FROM news_revision WHERE News_id = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, old.getVersion());
+                pstmt.setInt(2, newsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        lastCheckpoint = rs.getObject(1) == null ? -1 : rs.getInt(1);
+                        hasOld = rs.getInt(2) == 1;
+                    }
+                }
+            }
+            if (!hasOld) {
+                Timestamp savedAt = old.getVersion() == 0 ? old.getRow().getCreatedAt() : null;
+                insert(conn, newsId, old.getVersion(), old.getRow().getTitle(), old.getBody(), true,
+                        encodeCheckpoint(newsId, old.getVersion(), old.getBody()), savedAt);
+                lastCheckpoint = old.getVersion();
+            }
+            int version = old.getVersion() + 1;
+            boolean checkpoint = version - lastCheckpoint >= checkpointEvery;
+            byte[] data = null;
+            if (!checkpoint) {
+                data = encode(old.getBody(), newBody);
+                if (verify && !rebuilds(old.getBody(), newBody, data)) {
+                    Metrics.event("revision_mismatch", "record " + newsId + " v" + version, null);
+                    checkpoint = true;
+                }
+            }
+            if (checkpoint) {
+                data = encodeCheckpoint(newsId, version, newBody);
+            }
+            insert(conn, newsId, version, newTitle, newBody, checkpoint, data, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+        }
+
+        private byte[] encodeCheckpoint(int newsId, int version, String body) throws SQLException {
+            byte[] data = encode("", body);
+            if (verify && !rebuilds("", body, data)) {
+                throw new SQLException("Version " + version + " of article " + newsId + " does not survive encoding");
+            }
+            return data;
+        }
+
+        /** True if {@code data} applied to {@code base} gives back exactly {@code target}. */
+        static boolean rebuilds(String base, String target, byte[] data) {
+            try {
+                return target.equals(apply(base, data));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private static void insert(Connection conn, int newsId, int version, String title, String body, boolean checkpoint,
+                                   byte[] data, Timestamp savedAt) throws SQLException {
+            String sql = "INSERT INTO news_revision (News_id, Version, Title, Kind, Body_length, Data, Saved_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, newsId);
+                pstmt.setInt(2, version);
+                pstmt.setString(3, title);
+                pstmt.setString(4, checkpoint ? "F" : "D");
+                pstmt.setInt(5, body.length());
+                pstmt.setBytes(6, data);
+                pstmt.setTimestamp(7, savedAt);
+                pstmt.executeUpdate();
+            }
+        }
+
+        List<Revision> list(Connection conn, int newsId) throws SQLException {
+            String sql = "SELECT Version, Title, Kind, Body_length, Data, Saved_at FROM news_revision "
+                    + "WHERE News_id = ? ORDER BY Version DESC";
+            List<Revision> list = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, newsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(new Revision(rs.getInt("Version"), rs.getString("Title"), rs.getTimestamp("Saved_at"),
+                                rs.getInt("Body_length"), "F".equals(rs.getString("Kind")), rs.getBytes("Data").length));
+                    }
+                }
+            }
+            return list;
+        }
+
+        /** Applies the deltas from the nearest checkpoint at or below {@code version}. */
+        String rebuild(Connection conn, int newsId, int version) throws SQLException {
+            String sql = "SELECT Version, Data FROM news_revision WHERE News_id = ? AND Version <= ? AND Version >= "
+                    + "(SELECT MAX(Version) FROM news_revision WHERE News_id = ? AND Version <= ? AND Kind = 'F') "
+                    + "ORDER BY Version";
+            String body = null;
+            int last = -1;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, newsId);
+                pstmt.setInt(2, version);
+                pstmt.setInt(3, newsId);
+                pstmt.setInt(4, version);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        last = rs.getInt("Version");
+                        try {
+                            body = apply(body == null ? "" : body, rs.getBytes("Data"));
+                        } catch (IOException e) {
+                            throw new SQLException("Revision " + last + " of article " + newsId + " is corrupt", e);
+                        }
+                    }
+                }
+            }
+            return last == version ? body : null;
+        }
+
+        /**
+         * Encodes {@code target} as copies from {@code base} plus inserted text. Every
+         * BLOCK-char block of the base is hashed; a block of the target found there is
+         * grown in both directions into one copy, so scattered edits and moved paragraphs
+         * cost a few ops each. With an empty base this is just the deflated text.
+         */
+        static byte[] encode(String base, String target) {
+            Map<Integer, Integer> blocks = new HashMap<>();
+            for (int i = 0; i + BLOCK <= base.length(); i += BLOCK) {
+                blocks.putIfAbsent(hash(base, i), i);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + target.length() / 4);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytes)))) {
+                writeVarInt(out, target.length());
+                int pending = 0;
+                int i = 0;
+                while (i + BLOCK <= target.length()) {
+                    Integer at = blocks.get(hash(target, i));
+                    if (at == null || !base.regionMatches(at, target, i, BLOCK)) {
+                        i++;
+                        continue;
+                    }
+                    int start = i;
+                    int from = at;
+                    while (start > pending && from > 0 && base.charAt(from - 1) == target.charAt(start - 1)) {
+                        start--;
+                        from--;
+                    }
+                    int end = i + BLOCK;
+                    int to = at + BLOCK;
+                    while (end < target.length() && to < base.length() && base.charAt(to) == target.charAt(end)) {
+                        end++;
+                        to++;
+                    }
+                    writeInsert(out, target, pending, start);
+                    out.writeByte(COPY);
+                    writeVarInt(out, from);
+                    writeVarInt(out, end - start);
+                    pending = end;
+                    i = end;
+                }
+                writeInsert(out, target, pending, target.length());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static String apply(String base, byte[] delta) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(delta))))) {
+                int length = readVarInt(in);
+                StringBuilder out = new StringBuilder(length);
+                int op;
+                while ((op = in.read()) >= 0) {
+                    if (op == COPY) {
+                        int from = readVarInt(in);
+                        int count = readVarInt(in);
+                        if (from < 0 || count < 0 || from + count > base.length()) {
+                            throw new IOException("Copy outside the base text");
+                        }
+                        out.append(base, from, from + count);
+                    } else if (op == INSERT) {
+                        int count = readVarInt(in);
+                        if (count < 0 || out.length() + count > length) {
+                            throw new IOException("Insert past the expected length");
+                        }
+                        byte[] chars = new byte[2 * count];
+                        in.readFully(chars);
+                        out.append(ByteBuffer.wrap(chars).asCharBuffer());
+                    } else {
+                        throw new IOException("Unknown delta op " + op);
+                    }
+                }
+                if (out.length() != length) {
+                    throw new IOException("Rebuilt " + out.length() + " chars, expected " + length);
+                }
+                return out.toString();
+            }
+        }
+
+        private static void writeInsert(DataOutputStream out, String text, int from, int to) throws IOException {
+            if (from == to) return;
+            out.writeByte(INSERT);
+            writeVarInt(out, to - from);
+            out.writeChars(text.substring(from, to));
+        }
+
+        private static int hash(String text, int from) {
+            int h = 0;
+            for (int i = from; i < from + BLOCK; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            return h;
+        }
+
+        private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private static int readVarInt(DataInputStream in) throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+
+    /** Thrown at startup when EXPLAIN shows the feed query no longer reading its index in order. */
+    static final class FeedPlanException extends SQLException {
+        FeedPlanException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Versioned schema migrations, applied in order at startup. The highest applied
+     * version is recorded in {@code schema_version}; each step is written so that it is
+     * also safe on a database that already has the change (for example one created by
+     * an older build before migrations existed).
+     */
+    static class SchemaMigrator {
+
+        static final String FEED_INDEX = "idx_news_created";
+        static final String AUTHOR_INDEX = "idx_news_author_created";
+        static final String DELETED_INDEX = "idx_news_deleted";
+        static final String PUBLISH_INDEX = "idx_news_publish";
+
+        @FunctionalInterface
+        private interface Step {
+            void apply(Connection conn, DbProfile profile) throws SQLException;
+        }
+
+        private static final class Migration {
+            final int version;
+            final String description;
+            final Step step;
+
+            Migration(int version, String description, Step step) {
+                this.version = version;
+                this.description = description;
+                this.step = step;
+            }
+        }
+
+        private static final List<Migration> MIGRATIONS = List.of(
+                new Migration(1, "create user and news tables", SchemaMigrator::createTables),
+                new Migration(2, "index news feed order (Created_at, News_id)",
+                        (conn, profile) -> createIndex(conn, "news", FEED_INDEX, "Created_at DESC, News_id DESC")),
+                new Migration(3, "index per-author listings (U_id, Created_at)",
+                        (conn, profile) -> createIndex(conn, "news", AUTHOR_INDEX, "U_id, Created_at")),
+                new Migration(4, "create change_log", (conn, profile) -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("CREATE TABLE IF NOT EXISTS change_log ("
+                                + "Seq BIGINT PRIMARY KEY AUTO_INCREMENT,"
+                                + "Op VARCHAR(16) NOT NULL,"
+                                + "News_id INT NULL,"
+                                + "Author_Name VARCHAR(100) NULL,"
+                                + "Changed_at DATETIME NOT NULL"
+                                + ")" + profile.charset);
+                    }
+                }),
+                new Migration(5, "add news row version for optimistic edits",
+                        (conn, profile) -> addColumn(conn, "news", "Version", "INT NOT NULL DEFAULT 0")),
+                new Migration(6, "add soft-delete tombstones to news and user", (conn, profile) -> {
+                    addColumn(conn, "news", "Deleted_at", "DATETIME NULL");
+                    addColumn(conn, "user", "Deleted_at", "DATETIME NULL");
+                    createIndex(conn, "news", DELETED_INDEX, "Deleted_at");
+                }),
+                new Migration(7, "create news_revision", (conn, profile) -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("CREATE TABLE IF NOT EXISTS news_revision ("
+                                + "News_id INT NOT NULL,"
+                                + "Version INT NOT NULL,"
+                                + "Title VARCHAR(255)" + profile.charset + " NOT NULL,"
+                                + "Kind CHAR(1) NOT NULL,"
+                                + "Body_length INT NOT NULL,"
+                                + "Data MEDIUMBLOB NOT NULL,"
+                                + "Saved_at DATETIME NULL,"
+                                + "PRIMARY KEY (News_id, Version)"
+                                + ")" + profile.charset);
+                    }
+                }),
+                new Migration(8, "add news publish time for scheduled articles", (conn, profile) -> {
+                    addColumn(conn, "news", "Publish_at", "DATETIME NULL");
+                    createIndex(conn, "news", PUBLISH_INDEX, "Publish_at");
+                }),
+                new Migration(9, "record the user id of DELETE_USER changes",
+                        (conn, profile) -> addColumn(conn, "change_log", "U_id", "INT NULL")));
+
+        private final DbProfile profile;
+
+        SchemaMigrator(DbProfile profile) {
+            this.profile = profile;
+        }
+
+        static int latestVersion() {
+            return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+        }
+
+        /** Applies every migration newer than the recorded version; returns how many ran. */
+        int migrate(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "Version INT PRIMARY KEY,"
+                        + "Description VARCHAR(255) NOT NULL,"
+                        + "Applied_at DATETIME NOT NULL"
+                        + ")" + profile.charset);
+            }
+            int current = currentVersion(conn);
+            int applied = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                // DDL commits implicitly on MySQL, so each step is recorded as soon as it succeeds.
+                migration.step.apply(conn, profile);
+                record(conn, migration);
+                Metrics.event("schema_migrated", "migrate v" + migration.version + " " + migration.description, null);
+                applied++;
+            }
+            return applied;
+        }
+
+        int currentVersion(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(Version) FROM schema_version")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+
+        private void record(Connection conn, Migration migration) throws SQLException {
+            String sql = "INSERT INTO schema_version (Version, Description, Applied_at) VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, migration.version);
+                pstmt.setString(2, migration.description);
+                pstmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now().withNano(0)));
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                // Another instance migrating the same database got there first.
+                if (currentVersion(conn) < migration.version) {
+                    throw e;
+                }
+            }
+        }
+
+        private static void createTables(Connection conn, DbProfile profile) throws SQLException {
+            String charset = profile.charset;
+            String createUserTable = "CREATE TABLE IF NOT EXISTS user ("
+                    + "U_id INT PRIMARY KEY AUTO_INCREMENT,"
+                    + "Name VARCHAR(100) NOT NULL UNIQUE,"
+                    + "Email VARCHAR(255)" + charset + " NULL UNIQUE,"
+                    + "Age INT NULL,"
+                    + "Password VARCHAR(255) NOT NULL"
+                    + ")" + charset;
+
+            String createNewsTable = "CREATE TABLE IF NOT EXISTS news ("
+                    + "News_id INT PRIMARY KEY AUTO_INCREMENT,"
+                    + "Title VARCHAR(255)" + charset + " NOT NULL,"
+                    + "Body TEXT" + charset + " NOT NULL,"
+                    + "Created_at DATETIME NOT NULL,"
+                    + "U_id INT NOT NULL,"
+                    + "FOREIGN KEY (U_id) REFERENCES user(U_id)"
+                    + ")" + charset;
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(createUserTable);
+                stmt.execute(createNewsTable);
+            }
+        }
+
+        /** MySQL has no CREATE INDEX IF NOT EXISTS, so existence is checked through the metadata. */
+        private static void createIndex(Connection conn, String table, String name, String columns) throws SQLException {
+            if (!indexExists(conn, table, name)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+                }
+            }
+        }
+
+        private static void addColumn(Connection conn, String table, String column, String definition) throws SQLException {
+            if (!columnExists(conn, table, column)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+                }
+            }
+        }
+
+        private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+            DatabaseMetaData meta = conn.getMetaData();
+            for (String candidate : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+                try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, candidate, null)) {
+                    while (rs.next()) {
+                        if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean indexExists(Connection conn, String table, String name) throws SQLException {
+            DatabaseMetaData meta = conn.getMetaData();
+            for (String candidate : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+                try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, candidate, false, true)) {
+                    while (rs.next()) {
+                        if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Runs EXPLAIN on the first-page and keyset feed queries and fails unless
+         * {@code news} is read through {@link #FEED_INDEX} in index order, so a dropped index
+         * or a rewritten query shows up at startup instead of as a slow full scan and
+         * filesort once the archive grows. MySQL's plan has to name the index in {@code key}
+         * (not just {@code possible_keys}, which the USE INDEX hint always fills) with no
+         * filesort in {@code Extra}; H2's has to scan the index and report it sorted.
+         */
+        void verifyFeedPlan(Connection conn) throws SQLException {
+            for (boolean keyset : new boolean[] { false, true }) {
+                List<Map<String, String>> plan = explain(conn, NewsData.feedPageSql(keyset), keyset);
+                if (!usesFeedIndex(plan)) {
+                    FeedPlanException error = new FeedPlanException("Feed query no longer reads index " + FEED_INDEX
+                            + " in order (" + (keyset ? "keyset page" : "first page") + "). Plan: " + plan);
+                    Metrics.event("plan_regression", "verifyFeedPlan", error);
+                    throw error;
+                }
+            }
+        }
+
+        /** H2 names the index it reads {@code news} through in a comment right after the table. */
+        private static final Pattern H2_FEED_SCAN = Pattern.compile(
+                "from\\s+\\S*news\"?(?:\\s+use index \\([^)]*\\))?\\s*/\\*\\s*[\\w.\"]*\\." + FEED_INDEX + "\\b");
+
+        private static boolean usesFeedIndex(List<Map<String, String>> plan) {
+            for (Map<String, String> row : plan) {
+                if (row.containsKey("key")) {
+                    if (!"news".equalsIgnoreCase(row.get("table"))) continue;
+                    String extra = row.getOrDefault("extra", "");
+                    return FEED_INDEX.equalsIgnoreCase(row.get("key"))
+                            && (extra == null || !extra.toLowerCase(Locale.ROOT).contains("filesort"));
+                }
+                String text = row.values().iterator().next();
+                if (text != null) {
+                    text = text.toLowerCase(Locale.ROOT);
+                    return H2_FEED_SCAN.matcher(text).find() && text.contains("/* index sorted */");
+                }
+            }
+            return false;
+        }
+
+        /** The EXPLAIN rows, each as column label (lower case) to value. */
+        private List<Map<String, String>> explain(Connection conn, String sql, boolean keyset) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+                int i = 1;
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+                pstmt.setTimestamp(i++, now);
+                if (keyset) {
+                    pstmt.setTimestamp(i++, now);
+                    pstmt.setInt(i++, Integer.MAX_VALUE);
+                }
+                pstmt.setInt(i, 200);
+                List<Map<String, String>> plan = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    int columns = rs.getMetaData().getColumnCount();
+                    while (rs.next()) {
+                        Map<String, String> row = new LinkedHashMap<>();
+                        for (int c = 1; c <= columns; c++) {
+                            row.put(rs.getMetaData().getColumnLabel(c).toLowerCase(Locale.ROOT), rs.getString(c));
+                        }
+                        plan.add(row);
+                    }
+                }
+                return plan;
+            }
+        }
+    }
+
+    /**
+     * In-memory inverted index over article titles and bodies. Title terms count
+     * {@value #TITLE_BOOST} times towards a document's term frequency; results are ranked
+     * with BM25. Every query token also matches indexed terms that start with it, so
+     * partially typed words still find results.
+     * <p>
+     * NewsData keeps the index current on add/modify/delete. The initial build runs
+     * concurrently with those writes: {@link #addIfAbsent} never overwrites a newer
+     * document, and ids deleted while the build is running are skipped.
+     */
+    static class SearchIndex {
+        private static final int TITLE_BOOST = 3;
+        private static final int MAX_PREFIX_EXPANSION = 64;
+        private static final double K1 = 1.2;
+        private static final double B = 0.75;
+        private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+                "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+                "of", "on", "or", "that", "the", "this", "to", "was", "were", "with"));
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<String, PostingList> terms = new TreeMap<>();
+        private final Map<Integer, Integer> slotById = new HashMap<>();
+        private Doc[] slots = new Doc[1024];
+        private int slotCount;
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private final Set<Integer> deletedDuringBuild = new HashSet<>();
+        private final Set<Integer> authorsDeletedDuringBuild = new HashSet<>();
+        private long totalLength;
+        private volatile boolean building;
+        private volatile boolean ready;
+
+        private static class Doc {
+            final NewsRow row;
+            final String[] terms;
+            final int length;
+
+            Doc(NewsRow row, String[] terms, int length) {
+                this.row = row;
+                this.terms = terms;
+                this.length = length;
+            }
+        }
+
+        /** Document slots and term frequencies for one term, stored as parallel primitive arrays. */
+        private static class PostingList {
+            int[] ids = new int[4];
+            int[] freqs = new int[4];
+            int size;
+
+            void add(int id, int freq) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    freqs = Arrays.copyOf(freqs, size * 2);
+                }
+                ids[size] = id;
+                freqs[size] = freq;
+                size++;
+            }
+
+            void remove(int slot) {
+                for (int i = 0; i < size; i++) {
+                    if (ids[i] == slot) {
+                        size--;
+                        ids[i] = ids[size];
+                        freqs[i] = freqs[size];
+                        return;
+                    }
+                }
+            }
+        }
+
+        static class Result {
+            final List<NewsRow> rows;
+            final int totalMatches;
+            final long elapsedNanos;
+
+            Result(List<NewsRow> rows, int totalMatches, long elapsedNanos) {
+                this.rows = rows;
+                this.totalMatches = totalMatches;
+                this.elapsedNanos = elapsedNanos;
+            }
+        }
+
+        void beginBuild() {
+            lock.writeLock().lock();
+            try {
+                building = true;
+                ready = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void finishBuild() {
+            lock.writeLock().lock();
+            try {
+                building = false;
+                ready = true;
+                deletedDuringBuild.clear();
+                authorsDeletedDuringBuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean isReady() {
+            return ready;
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return slotById.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void addIfAbsent(NewsRow row, String body) {
+            lock.writeLock().lock();
+            try {
+                if (slotById.containsKey(row.getNewsId()) || deletedDuringBuild.contains(row.getNewsId())
+                        || authorsDeletedDuringBuild.contains(row.getAuthorId())) return;
+                insert(row, body);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(NewsRow row, String body) {
+            lock.writeLock().lock();
+            try {
+                delete(row.getNewsId());
+                insert(row, body);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Returns the indexed feed row for an article, or null if it is not indexed yet. */
+        NewsRow getRow(int newsId) {
+            lock.readLock().lock();
+            try {
+                Integer slot = slotById.get(newsId);
+                return slot == null ? null : slots[slot].row;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void remove(int newsId) {
+            lock.writeLock().lock();
+            try {
+                delete(newsId);
+                if (building) {
+                    deletedDuringBuild.add(newsId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Drops every article by user {@code uId}; a full scan of the slots, run once per deleted user. */
+        void removeByAuthor(int uId) {
+            lock.writeLock().lock();
+            try {
+                List<Integer> newsIds = new ArrayList<>();
+                for (int slot = 0; slot < slotCount; slot++) {
+                    Doc doc = slots[slot];
+                    if (doc != null && doc.row.getAuthorId() == uId) {
+                        newsIds.add(doc.row.getNewsId());
+                    }
+                }
+                for (int newsId : newsIds) {
+                    delete(newsId);
+                }
+                if (building) {
+                    authorsDeletedDuringBuild.add(uId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void insert(NewsRow row, String body) {
+            Map<String, Integer> freqs = new HashMap<>();
+            int length = tokenize(row.getTitle(), TITLE_BOOST, freqs) + tokenize(body, 1, freqs);
+
+            int slot;
+            if (!freeSlots.isEmpty()) {
+                slot = freeSlots.pop();
+            } else {
+                if (slotCount == slots.length) {
+                    slots = Arrays.copyOf(slots, slotCount * 2);
+                }
+                slot = slotCount++;
+            }
+
+            String[] docTerms = new String[freqs.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+                PostingList postings = terms.get(e.getKey());
+                String term = e.getKey();
+                if (postings == null) {
+                    postings = new PostingList();
+                    terms.put(term, postings);
+                } else {
+                    term = terms.ceilingKey(term); // share the indexed String instance
+                }
+                postings.add(slot, e.getValue());
+                docTerms[i++] = term;
+            }
+            slots[slot] = new Doc(row, docTerms, length);
+            slotById.put(row.getNewsId(), slot);
+            totalLength += length;
+        }
+
+        private void delete(int newsId) {
+            Integer slot = slotById.remove(newsId);
+            if (slot == null) return;
+            Doc doc = slots[slot];
+            slots[slot] = null;
+            freeSlots.push(slot);
+            totalLength -= doc.length;
+            for (String term : doc.terms) {
+                PostingList postings = terms.get(term);
+                postings.remove(slot);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+
+        /** Adds each token's frequency times {@code weight} to {@code freqs}; returns the weighted token count. */
+        private static int tokenize(String text, int weight, Map<String, Integer> freqs) {
+            int count = 0;
+            for (String token : tokens(text)) {
+                freqs.merge(token, weight, Integer::sum);
+                count += weight;
+            }
+            return count;
+        }
+
+        private static List<String> tokens(String text) {
+            List<String> tokens = new ArrayList<>();
+            if (text == null) return tokens;
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(token)) {
+                        tokens.add(token);
+                    }
+                    start = -1;
+                }
+            }
+            return tokens;
+        }
+
+        /**
+         * Returns the top {@code limit} articles containing every query token (exactly or
+         * as a prefix), best match first.
+         */
+        Result search(String query, int limit) {
+            long start = System.nanoTime();
+            List<String> queryTokens = tokens(query);
+            if (queryTokens.isEmpty()) {
+                return new Result(new ArrayList<>(), 0, System.nanoTime() - start);
+            }
+
+            lock.readLock().lock();
+            try {
+                int docCount = slotById.size();
+                double avgLength = docCount == 0 ? 1.0 : (double) totalLength / docCount;
+
+                // Scores accumulate per document slot; matched[slot] counts how many query
+                // tokens the document has matched so far, which gives AND semantics.
+                double[] scores = new double[slotCount];
+                int[] matched = new int[slotCount];
+                for (int t = 0; t < queryTokens.size(); t++) {
+                    String token = queryTokens.get(t);
+                    int expanded = 0;
+                    for (Map.Entry<String, PostingList> e : terms.tailMap(token, true).entrySet()) {
+                        if (!e.getKey().startsWith(token) || expanded++ >= MAX_PREFIX_EXPANSION) break;
+                        double termWeight = e.getKey().equals(token) ? 1.0 : 0.5;
+                        PostingList postings = e.getValue();
+                        double idf = Math.log(1.0 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                        for (int i = 0; i < postings.size; i++) {
+                            int slot = postings.ids[i];
+                            if (matched[slot] < t) continue;
+                            int tf = postings.freqs[i];
+                            double norm = K1 * (1 - B + B * slots[slot].length / avgLength);
+                            scores[slot] += termWeight * idf * tf * (K1 + 1) / (tf + norm);
+                            matched[slot] = t + 1;
+                        }
+                    }
+                }
+
+                int required = queryTokens.size();
+                int totalMatches = 0;
+                PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingDouble(slot -> scores[slot]));
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (matched[slot] != required) continue;
+                    totalMatches++;
+                    if (top.size() < limit) {
+                        top.offer(slot);
+                    } else if (scores[slot] > scores[top.peek()]) {
+                        top.poll();
+                        top.offer(slot);
+                    }
+                }
+                List<NewsRow> rows = new ArrayList<>(top.size());
+                while (!top.isEmpty()) {
+                    rows.add(slots[top.poll()].row);
+                }
+                Collections.reverse(rows);
+                return new Result(rows, totalMatches, System.nanoTime() - start);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * LRU cache of article bodies bounded by total characters rather than entry count, so
+     * a handful of long features cannot crowd the heap. Writers call {@link #invalidate};
+     * a load that raced with an invalidation is discarded instead of caching stale text.
+     */
+    static class BodyCache {
+        private final long maxChars;
+        private final LinkedHashMap<Integer, String> entries = new LinkedHashMap<>(256, 0.75f, true);
+        private long weight;
+        private long generation;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        BodyCache(long maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        synchronized String get(int newsId) {
+            String body = entries.get(newsId);
+            if (body != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return body;
+        }
+
+        /** Generation to pass to {@link #put}; taken before the body is loaded. */
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void put(int newsId, String body, long loadedAtGeneration) {
+            if (loadedAtGeneration != generation || body.length() > maxChars) return;
+            String previous = entries.put(newsId, body);
+            if (previous != null) {
+                weight -= previous.length();
+            }
+            weight += body.length();
+
+            Iterator<Map.Entry<Integer, String>> it = entries.entrySet().iterator();
+            while (weight > maxChars && it.hasNext()) {
+                weight -= it.next().getValue().length();
+                it.remove();
+                evictions++;
+            }
+        }
+
+        synchronized void invalidate(int newsId) {
+            generation++;
+            String removed = entries.remove(newsId);
+            if (removed != null) {
+                weight -= removed.length();
+            }
+        }
+
+        synchronized Stats getStats() {
+            return new Stats(hits, misses, evictions, entries.size(), weight, maxChars);
+        }
+
+        static class Stats {
+            final long hits;
+            final long misses;
+            final long evictions;
+            final int entries;
+            final long weight;
+            final long maxWeight;
+
+            Stats(long hits, long misses, long evictions, int entries, long weight, long maxWeight) {
+                this.hits = hits;
+                this.misses = misses;
+                this.evictions = evictions;
+                this.entries = entries;
+                this.weight = weight;
+                this.maxWeight = maxWeight;
+            }
+
+            double hitRate() {
+                long lookups = hits + misses;
+                return lookups == 0 ? 0.0 : (double) hits / lookups;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d entries=%d chars=%d/%d",
+                        hits, misses, hitRate() * 100, evictions, entries, weight, maxWeight);
+            }
+        }
+    }
+
+    /**
+     * The first feed page, kept in process and tagged with the change-log position it was
+     * read at. Every write that can change the feed (add, edit, delete, restore, publish,
+     * import) appends to change_log in its own transaction, so MAX(Seq) serves as the
+     * version counter: a refresh that finds it unchanged is answered from here after one
+     * primary-key probe. Entries also expire after {@code ttlMs}, which bounds how long a
+     * change whose sequence number committed out of order can go unseen. The age of every
+     * page served from the cache is recorded as the {@code feedCache.age} operation, so
+     * staleness shows up next to the query latencies.
+     */
+    static final class FeedCache {
+        private static final class Entry {
+            final long seq;
+            final int limit;
+            final List<NewsRow> rows;
+            final long loadedAt;
+
+            Entry(long seq, int limit, List<NewsRow> rows, long loadedAt) {
+                this.seq = seq;
+                this.limit = limit;
+                this.rows = rows;
+                this.loadedAt = loadedAt;
+            }
+        }
+
+        private final long ttlNanos;
+        private volatile Entry entry;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+
+        FeedCache(long ttlMillis) {
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        }
+
+        /** The cached rows, at most {@code limit} of them, if they are still current at {@code seq}; else null. */
+        List<NewsRow> get(long seq, int limit, long now) {
+            Entry current = entry;
+            if (current == null || ttlNanos <= 0) {
+                misses.increment();
+                return null;
+            }
+            if (current.seq != seq) {
+                invalidations.increment();
+                misses.increment();
+                return null;
+            }
+            long age = now - current.loadedAt;
+            if (age > ttlNanos) {
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            if (limit > current.limit && current.rows.size() == current.limit) {
+                // Asked for more than was read, and the feed may have more.
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            Metrics.stats("feedCache.age").record(age, false);
+            return current.rows.size() <= limit ? current.rows : current.rows.subList(0, limit);
+        }
+
+        /** Caches a page read at {@code seq}, unless a page read at a later position is already here. */
+        void put(long seq, int limit, List<NewsRow> rows, long now) {
+            if (ttlNanos <= 0) return;
+            Entry current = entry;
+            if (current != null && current.seq > seq) return;
+            entry = new Entry(seq, limit, Collections.unmodifiableList(new ArrayList<>(rows)), now);
+        }
+
+        Stats getStats() {
+            return new Stats(hits.sum(), misses.sum(), invalidations.sum(), expirations.sum());
+        }
+
+        static class Stats {
+            final long hits;
+            final long misses;
+            final long invalidations;
+            final long expirations;
+
+            Stats(long hits, long misses, long invalidations, long expirations) {
+                this.hits = hits;
+                this.misses = misses;
+                this.invalidations = invalidations;
+                this.expirations = expirations;
+            }
+
+            double hitRate() {
+                long lookups = hits + misses;
+                return lookups == 0 ? 0.0 : (double) hits / lookups;
+            }
+
+            @Override
+            public String toString() {
+                OperationStats age = Metrics.stats("feedCache.age");
+                return String.format("hits=%d misses=%d hitRate=%.1f%% invalidations=%d expirations=%d ageP50=%.0fms ageP99=%.0fms",
+                        hits, misses, hitRate() * 100, invalidations, expirations, age.getP50Millis(), age.getP99Millis());
+            }
+        }
+    }
+
+    /**
+     * PBKDF2-HMAC-SHA256 password hashes, stored as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>}
+     * with Base64 salt and hash. The iteration count is the work factor; raising it makes
+     * older hashes report {@link #needsRehash} so they are upgraded on the next login.
+     * At most {@code maxConcurrent} hashes are computed at once, so a burst of logins
+     * queues instead of taking every core.
+     */
+    static final class PasswordHasher {
+        private static final String PREFIX = "pbkdf2-sha256$";
+        private static final int SALT_BYTES = 16;
+        private static final int HASH_BITS = 256;
+
+        private final int iterations;
+        private final Semaphore permits;
+        private final SecureRandom random = new SecureRandom();
+
+        PasswordHasher(int iterations, int maxConcurrent) {
+            if (iterations < 1 || maxConcurrent < 1) {
+                throw new IllegalArgumentException("Need iterations >= 1 and maxConcurrent >= 1");
+            }
+            this.iterations = iterations;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        static PasswordHasher fromConfig() {
+            return new PasswordHasher(AppConfig.getInt("newsdata.auth.iterations", 310_000),
+                    AppConfig.getInt("newsdata.auth.maxConcurrentHashes", Runtime.getRuntime().availableProcessors()));
+        }
+
+        String hash(String password) {
+            byte[] salt = new byte[SALT_BYTES];
+            random.nextBytes(salt);
+            byte[] hash = derive(password, salt, iterations);
+            Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+            return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+        }
+
+        /** Checks a password against a stored hash, or against a legacy plaintext value. */
+        boolean verify(String password, String stored) {
+            if (stored == null) return false;
+            if (!stored.startsWith(PREFIX)) {
+                return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+            }
+            String[] parts = stored.substring(PREFIX.length()).split("\\$");
+            if (parts.length != 3) return false;
+            try {
+                int storedIterations = Integer.parseInt(parts[0]);
+                byte[] salt = Base64.getDecoder().decode(parts[1]);
+                byte[] expected = Base64.getDecoder().decode(parts[2]);
+                return storedIterations > 0 && MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        /** True for plaintext values and for hashes made with a different work factor. */
+        boolean needsRehash(String stored) {
+            return stored == null || !stored.startsWith(PREFIX + iterations + "$");
+        }
+
+        private byte[] derive(String password, byte[] salt, int rounds) {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+            permits.acquireUninterruptibly();
+            try {
+                return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+            } finally {
+                permits.release();
+                spec.clearPassword();
+            }
+        }
+    }
+
+    /**
+     * Recent successful logins, kept for a short TTL so a repeated login skips the slow
+     * hash. An entry holds an HMAC of the password under a per-process random key, never
+     * the password itself, and only matches while the user's stored hash is unchanged.
+     */
+    static final class AuthCache {
+        private static final class Entry {
+            final String storedHash;
+            final byte[] passwordMac;
+            final long expiresAt;
+
+            Entry(String storedHash, byte[] passwordMac, long expiresAt) {
+                this.storedHash = storedHash;
+                this.passwordMac = passwordMac;
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        private final long ttlNanos;
+        private final Map<String, Entry> entries;
+        private final ThreadLocal<Mac> mac;
+
+        AuthCache(long ttlMillis, int maxEntries) {
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            SecretKeySpec macKey = new SecretKeySpec(key, "HmacSHA256");
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac m = Mac.getInstance("HmacSHA256");
+                    m.init(macKey);
+                    return m;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 is not available", e);
+                }
+            });
+        }
+
+        static AuthCache fromConfig() {
+            return new AuthCache(AppConfig.getLong("newsdata.auth.cacheTtlMs", 60_000L),
+                    AppConfig.getInt("newsdata.auth.cacheSize", 1024));
+        }
+
+        boolean matches(String username, String storedHash, String password, long now) {
+            if (ttlNanos <= 0) return false;
+            Entry entry;
+            synchronized (this) {
+                entry = entries.get(username);
+                if (entry != null && now - entry.expiresAt > 0) {
+                    entries.remove(username);
+                    return false;
+                }
+            }
+            return entry != null && entry.storedHash.equals(storedHash)
+                    && MessageDigest.isEqual(entry.passwordMac, mac(password));
+        }
+
+        void put(String username, String storedHash, String password, long now) {
+            if (ttlNanos <= 0) return;
+            Entry entry = new Entry(storedHash, mac(password), now + ttlNanos);
+            synchronized (this) {
+                entries.put(username, entry);
+            }
+        }
+
+        synchronized void invalidate(String username) {
+            entries.remove(username);
+        }
+
+        private byte[] mac(String password) {
+            return mac.get().doFinal(password.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * U_id to Name for live users, so feed pages can be read from {@code news} alone and
+     * their authors named without a join. A user's name never changes, so an entry can be
+     * missing but never wrong: NewsData looks up users it has not seen yet one at a time,
+     * and the feed queries filter out deleted users themselves. {@link #invalidate} makes
+     * the next page reload the whole directory.
+     */
+    static final class AuthorDirectory {
+        private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+        private volatile boolean loaded;
+
+        boolean isLoaded() {
+            return loaded;
+        }
+
+        String get(int uId) {
+            return names.get(uId);
+        }
+
+        void put(int uId, String name) {
+            names.put(uId, name);
+        }
+
+        void remove(int uId) {
+            names.remove(uId);
+        }
+
+        void invalidate() {
+            loaded = false;
+        }
+
+        void replaceAll(Map<Integer, String> live) {
+            names.keySet().retainAll(live.keySet());
+            names.putAll(live);
+            loaded = true;
+        }
+
+        /** Every known author, ordered by name. */
+        List<User> list() {
+            List<User> list = new ArrayList<>(names.size());
+            names.forEach((uId, name) -> list.add(new User(uId, name)));
+            list.sort(Comparator.comparing(User::getUsername, String.CASE_INSENSITIVE_ORDER));
+            return list;
+        }
+    }
+
+    /** Thrown by {@link NewsData#authenticateUser} for an attempt the {@link LoginGuard} turned away. */
+    static final class LoginBlockedException extends Exception {
+        final LoginGuard.Reason reason;
+        final long retryAfterMillis;
+
+        LoginBlockedException(LoginGuard.Reason reason, long retryAfterMillis) {
+            super(reason.describe(Math.max(1, (retryAfterMillis + 999) / 1000)));
+            this.reason = reason;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        long retryAfterSeconds() {
+            return Math.max(1, (retryAfterMillis + 999) / 1000);
+        }
+    }
+
+    public interface LoginGuardMXBean {
+        long getAllowed();
+        long getRateLimited();
+        long getBusy();
+        long getBackedOff();
+        long getLockedOut();
+        long getLockouts();
+        int getTrackedUsers();
+    }
+
+    /**
+     * Throttles logins before they reach the database. Every username has a token bucket
+     * and all logins share a global one, so neither a guesser hammering one account nor a
+     * spray across many accounts turns into query load. After {@code backoffAfter} failed
+     * attempts in a row an account waits out an exponential backoff, and after
+     * {@code lockoutAfter} it is locked for {@code lockoutMs}; a successful login clears both,
+     * as does a quiet spell as long as the lockout. Rejected attempts never touch the
+     * database; they are counted per reason and published over JMX as
+     * {@code newspaper:type=LoginGuard}.
+     * <p>
+     * A username is only tracked once the global bucket has admitted an attempt for it,
+     * and an entry with a full bucket and no recent failure is swept, so a spray of made-up
+     * names cannot outgrow what the global rate lets through. {@code maxTrackedUsers} is a
+     * hard limit besides: with the table full, attempts for untracked names are turned away
+     * as BUSY rather than letting it grow (concurrent logins can overshoot it by a few).
+     * <p>
+     * Nothing here takes a lock. A bucket is a single "theoretical arrival time" (the GCRA
+     * form of a token bucket), so one compare-and-set both refills it and takes a token.
+     */
+    static final class LoginGuard implements LoginGuardMXBean {
+        enum Reason {
+            RATE_LIMITED("Too many login attempts for this account; try again in %d s."),
+            BUSY("Too many login attempts right now; try again in %d s."),
+            BACKOFF("Too many failed logins; wait %d s before trying again."),
+            LOCKED_OUT("Too many failed logins; this account is locked for %d s.");
+
+            private final String message;
+
+            Reason(String message) {
+                this.message = message;
+            }
+
+            String describe(long seconds) {
+                return String.format(message, seconds);
+            }
+        }
+
+        private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        /** Allows a burst of {@code capacity}, then one attempt per {@code intervalNanos}. */
+        private static final class TokenBucket {
+            private final long intervalNanos;
+            private final long burstNanos;
+            private final AtomicLong arrival;
+
+            TokenBucket(long intervalNanos, int capacity, long now) {
+                this.intervalNanos = intervalNanos;
+                this.burstNanos = intervalNanos * (capacity - 1);
+                this.arrival = new AtomicLong(now);
+            }
+
+            /** Whether {@link #tryTake} would succeed now, without taking a token. */
+            boolean canTake(long now) {
+                return arrival.get() - now <= burstNanos;
+            }
+
+            boolean tryTake(long now) {
+                while (true) {
+                    long current = arrival.get();
+                    long next = current - now > 0 ? current : now;
+                    if (next - now > burstNanos) return false;
+                    if (arrival.compareAndSet(current, next + intervalNanos)) return true;
+                }
+            }
+
+            long waitNanos(long now) {
+                return Math.max(0, arrival.get() - now - burstNanos);
+            }
+
+            boolean isFull(long now) {
+                return arrival.get() - now <= 0;
+            }
+        }
+
+        private static final class Account {
+            final TokenBucket bucket;
+            final AtomicInteger failures = new AtomicInteger();
+            final AtomicLong blockedUntil;
+            volatile long lastFailure;
+
+            Account(TokenBucket bucket, long now, long lockoutNanos) {
+                this.bucket = bucket;
+                this.blockedUntil = new AtomicLong(now);
+                this.lastFailure = now - lockoutNanos - 1; // no failure yet; sweepable once the bucket refills
+            }
+        }
+
+        private final boolean enabled;
+        private final long userIntervalNanos;
+        private final int userBurst;
+        private final TokenBucket global;
+        private final int backoffAfter;
+        private final long backoffBaseNanos;
+        private final long backoffMaxNanos;
+        private final int lockoutAfter;
+        private final long lockoutNanos;
+        private final int maxTracked;
+        private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+        private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder[] blocked = new LongAdder[Reason.values().length];
+        private final LongAdder lockouts = new LongAdder();
+
+        LoginGuard(boolean enabled, int userPerMinute, int userBurst, int globalPerSecond, int globalBurst,
+                   int backoffAfter, long backoffBaseMs, long backoffMaxMs, int lockoutAfter, long lockoutMs, int maxTracked) {
+            if (userPerMinute < 1 || userBurst < 1 || globalPerSecond < 1 || globalBurst < 1
+                    || backoffAfter < 1 || lockoutAfter < 1 || maxTracked < 1) {
+                throw new IllegalArgumentException("Login guard rates, bursts and thresholds must be >= 1");
+            }
+            long now = System.nanoTime();
+            this.enabled = enabled;
+            this.userIntervalNanos = TimeUnit.MINUTES.toNanos(1) / userPerMinute;
+            this.userBurst = userBurst;
+            this.global = new TokenBucket(TimeUnit.SECONDS.toNanos(1) / globalPerSecond, globalBurst, now);
+            this.backoffAfter = backoffAfter;
+            this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(backoffBaseMs);
+            this.backoffMaxNanos = TimeUnit.MILLISECONDS.toNanos(backoffMaxMs);
+            this.lockoutAfter = lockoutAfter;
+            this.lockoutNanos = TimeUnit.MILLISECONDS.toNanos(lockoutMs);
+            this.maxTracked = maxTracked;
+            for (int i = 0; i < blocked.length; i++) {
+                blocked[i] = new LongAdder();
+            }
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("newspaper:type=LoginGuard"));
+            } catch (JMException e) {
+                // Already registered by another instance, or JMX unavailable: the guard still works.
+            }
+        }
+
+        static LoginGuard fromConfig() {
+            return new LoginGuard(AppConfig.getBoolean("newsdata.login.guard", true),
+                    AppConfig.getInt("newsdata.login.userPerMinute", 10),
+                    AppConfig.getInt("newsdata.login.userBurst", 5),
+                    AppConfig.getInt("newsdata.login.globalPerSecond", 50),
+                    AppConfig.getInt("newsdata.login.globalBurst", 100),
+                    AppConfig.getInt("newsdata.login.backoffAfter", 3),
+                    AppConfig.getLong("newsdata.login.backoffBaseMs", 1000L),
+                    AppConfig.getLong("newsdata.login.backoffMaxMs", 60_000L),
+                    AppConfig.getInt("newsdata.login.lockoutAfter", 10),
+                    AppConfig.getLong("newsdata.login.lockoutMs", 900_000L),
+                    AppConfig.getInt("newsdata.login.maxTrackedUsers", 100_000));
+        }
+
+        /**
+         * Throws if this attempt has to be turned away; otherwise the caller may check the
+         * password. An account that is blocked or out of tokens is rejected before the global
+         * bucket is touched, and a BUSY rejection takes nothing from the account's bucket.
+         */
+        void check(String username, long now) throws LoginBlockedException {
+            if (!enabled) return;
+            String key = key(username);
+            Account account = accounts.get(key);
+            if (account != null) {
+                long wait = account.blockedUntil.get() - now;
+                if (wait > 0) {
+                    reject(account.failures.get() >= lockoutAfter ? Reason.LOCKED_OUT : Reason.BACKOFF, wait);
+                }
+                if (!account.bucket.canTake(now)) {
+                    reject(Reason.RATE_LIMITED, account.bucket.waitNanos(now));
+                }
+            }
+            if (!global.tryTake(now)) {
+                reject(Reason.BUSY, global.waitNanos(now));
+            }
+            if (account == null) {
+                account = track(key, now);
+                if (account == null) {
+                    reject(Reason.BUSY, SWEEP_INTERVAL_NANOS);
+                }
+            }
+            if (!account.bucket.tryTake(now)) {
+                reject(Reason.RATE_LIMITED, account.bucket.waitNanos(now));
+            }
+            allowed.increment();
+        }
+
+        void succeeded(String username) {
+            if (!enabled) return;
+            accounts.remove(key(username));
+        }
+
+        /** Records a wrong password, or an unknown username, and extends the account's backoff. */
+        void failed(String username, long now) {
+            if (!enabled) return;
+            Account account = track(key(username), now);
+            if (account == null) return; // table full; check() turns this name away until a sweep frees room
+            if (now - account.lastFailure > lockoutNanos) {
+                account.failures.set(0);
+            }
+            account.lastFailure = now;
+            int failures = account.failures.incrementAndGet();
+            long delay;
+            if (failures >= lockoutAfter) {
+                delay = lockoutNanos;
+                if (failures == lockoutAfter) {
+                    lockouts.increment();
+                    Metrics.event("login_lockout", "authenticateUser", null);
+                }
+            } else if (failures >= backoffAfter) {
+                int doublings = Math.min(failures - backoffAfter, 30);
+                delay = Math.min(backoffMaxNanos, backoffBaseNanos << doublings);
+            } else {
+                return;
+            }
+            long until = now + delay;
+            account.blockedUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        }
+
+        private void reject(Reason reason, long waitNanos) throws LoginBlockedException {
+            blocked[reason.ordinal()].increment();
+            throw new LoginBlockedException(reason, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        /** The account for {@code key}, created if there is room; null if the table is full. */
+        private Account track(String key, long now) {
+            Account account = accounts.get(key);
+            if (account != null) return account;
+            if (accounts.size() >= maxTracked) {
+                sweep(now);
+                if (accounts.size() >= maxTracked) return null;
+            }
+            return accounts.computeIfAbsent(key,
+                    k -> new Account(new TokenBucket(userIntervalNanos, userBurst, now), now, lockoutNanos));
+        }
+
+        /** Forgets accounts with nothing left to remember; at most one thread sweeps per interval. */
+        private void sweep(long now) {
+            long due = nextSweep.get();
+            if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) return;
+            accounts.values().removeIf(a -> a.bucket.isFull(now) && a.blockedUntil.get() - now <= 0
+                    && now - a.lastFailure > lockoutNanos);
+        }
+
+        private static String key(String username) {
+            return username.toLowerCase(Locale.ROOT);
+        }
+
+        @Override public long getAllowed() { return allowed.sum(); }
+        @Override public long getRateLimited() { return blocked[Reason.RATE_LIMITED.ordinal()].sum(); }
+        @Override public long getBusy() { return blocked[Reason.BUSY.ordinal()].sum(); }
+        @Override public long getBackedOff() { return blocked[Reason.BACKOFF.ordinal()].sum(); }
+        @Override public long getLockedOut() { return blocked[Reason.LOCKED_OUT.ordinal()].sum(); }
+        @Override public long getLockouts() { return lockouts.sum(); }
+        @Override public int getTrackedUsers() { return accounts.size(); }
+
+        @Override
+        public String toString() {
+            return String.format("allowed=%d rateLimited=%d busy=%d backedOff=%d lockedOut=%d lockouts=%d tracked=%d",
+                    getAllowed(), getRateLimited(), getBusy(), getBackedOff(), getLockedOut(), getLockouts(), getTrackedUsers());
+        }
+    }
+
+    /**
+     * Streams articles from a JSONL or CSV file into the news table using JDBC batches.
+     * Authors are resolved by Name against the user table. Invalid rows are reported and
+     * skipped; if a batch fails in the database, its transaction is rolled back and its
+     * rows are retried one at a time so only the offending rows are rejected.
+     * <p>
+     * Each record needs {@code title}, {@code body} and {@code author}; {@code created_at}
+     * ("yyyy-MM-dd HH:mm:ss" or ISO-8601) is optional and defaults to the import time.
+     */
+    static class BulkImporter {
+        private static final String INSERT_SQL = "INSERT INTO news (Title, Body, Created_at, U_id) VALUES (?, ?, ?, ?)";
+        private static final int MAX_REPORTED_FAILURES = 100;
+        private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+        private final NewsData model;
+        private final int batchSize;
+        private final int commitEvery;
+
+        BulkImporter(NewsData model, int batchSize, int commitEvery) {
+            if (batchSize < 1 || commitEvery < batchSize) {
+                throw new IllegalArgumentException("Need batchSize >= 1 and commitEvery >= batchSize");
+            }
+            this.model = model;
+            this.batchSize = batchSize;
+            this.commitEvery = commitEvery;
+        }
+
+        static class Record {
+            final long line;
+            final String title;
+            final String body;
+            final String author;
+            final String createdAt;
+            final String error;
+            int authorId;
+            Timestamp timestamp;
+
+            Record(long line, String title, String body, String author, String createdAt) {
+                this(line, title, body, author, createdAt, null);
+            }
+
+            Record(long line, String title, String body, String author, String createdAt, String error) {
+                this.line = line;
+                this.title = title;
+                this.body = body;
+                this.author = author;
+                this.createdAt = createdAt;
+                this.error = error;
+            }
+
+            static Record malformed(long line, String error) {
+                return new Record(line, null, null, null, null, error);
+            }
+        }
+
+        interface RecordReader {
+            /** Returns the next record, or null at end of input. */
+            Record next() throws IOException;
+        }
+
+        static class Report {
+            long read;
+            long inserted;
+            long failed;
+            long elapsedNanos;
+            final List<String> failures = new ArrayList<>();
+
+            void fail(long line, String reason) {
+                failed++;
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    failures.add("line " + line + ": " + reason);
+                }
+            }
+
+            double rowsPerSecond() {
+                return elapsedNanos == 0 ? 0.0 : inserted / (elapsedNanos / 1e9);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("read=%d inserted=%d failed=%d elapsed=%.2fs rate=%.0f rows/s",
+                        read, inserted, failed, elapsedNanos / 1e9, rowsPerSecond());
+            }
+        }
+
+        Report importFile(Path file, String format) throws IOException, SQLException {
+            String fmt = format != null ? format : (file.toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? "csv" : "jsonl");
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                RecordReader records;
+                if (fmt.equals("csv")) {
+                    records = new CsvRecordReader(reader);
+                } else if (fmt.equals("jsonl")) {
+                    records = new JsonlRecordReader(reader);
+                } else {
+                    throw new IllegalArgumentException("Unknown import format: " + fmt);
+                }
+                return importRecords(records);
+            }
+        }
+
+        Report importRecords(RecordReader records) throws IOException, SQLException {
+            Report report = new Report();
+            long start = System.nanoTime();
+            long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+            Map<String, Integer> authors = model.getAuthorIds();
+            Timestamp importTime = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+
+            try (Connection conn = model.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                conn.setAutoCommit(false);
+                List<Record> uncommitted = new ArrayList<>(commitEvery);
+                int batched = 0;
+
+                Record record;
+                while ((record = records.next()) != null) {
+                    report.read++;
+                    String problem = resolve(record, authors, importTime);
+                    if (problem != null) {
+                        report.fail(record.line, problem);
+                        continue;
+                    }
+
+                    bind(pstmt, record);
+                    pstmt.addBatch();
+                    uncommitted.add(record);
+                    if (++batched == batchSize) {
+                        batched = 0;
+                        if (!executeBatch(conn, pstmt, uncommitted, report)) continue;
+                    }
+                    if (uncommitted.size() >= commitEvery) {
+                        commit(conn, pstmt, uncommitted, report);
+                    }
+
+                    long now = System.nanoTime();
+                    if (now >= nextProgress) {
+                        report.elapsedNanos = now - start;
+                        System.out.println("Import progress: " + report);
+                        nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                    }
+                }
+                if (batched > 0) {
+                    executeBatch(conn, pstmt, uncommitted, report);
+                }
+                commit(conn, pstmt, uncommitted, report);
+            }
+            if (report.inserted > 0) {
+                model.logReload();
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            return report;
+        }
+
+        private static String resolve(Record record, Map<String, Integer> authors, Timestamp defaultTime) {
+            if (record.error != null) return record.error;
+            if (record.title == null || record.title.trim().isEmpty()) return "missing title";
+            if (record.body == null || record.body.trim().isEmpty()) return "missing body";
+            if (record.title.length() > 255) return "title longer than 255 characters";
+            if (record.author == null) return "missing author";
+            Integer authorId = authors.get(record.author);
+            if (authorId == null) return "unknown author '" + record.author + "'";
+            record.authorId = authorId;
+
+            if (record.createdAt == null || record.createdAt.isEmpty()) {
+                record.timestamp = defaultTime;
+            } else {
+                try {
+                    record.timestamp = Timestamp.valueOf(LocalDateTime.parse(record.createdAt.replace(' ', 'T')));
+                } catch (DateTimeParseException e) {
+                    return "bad created_at '" + record.createdAt + "'";
+                }
+            }
+            return null;
+        }
+
+        private static void bind(PreparedStatement pstmt, Record record) throws SQLException {
+            pstmt.setString(1, record.title.trim());
+            pstmt.setString(2, record.body.trim());
+            pstmt.setTimestamp(3, record.timestamp);
+            pstmt.setInt(4, record.authorId);
+        }
+
+        /** Sends the pending batch; on failure falls back to row-by-row for the open transaction. */
+        private boolean executeBatch(Connection conn, PreparedStatement pstmt, List<Record> uncommitted, Report report) throws SQLException {
+            try {
+                pstmt.executeBatch();
+                return true;
+            } catch (BatchUpdateException e) {
+                retryIndividually(conn, pstmt, uncommitted, report);
+                return false;
+            }
+        }
+
+        private void commit(Connection conn, PreparedStatement pstmt, List<Record> uncommitted, Report report) throws SQLException {
+            if (uncommitted.isEmpty()) return;
+            conn.commit();
+            report.inserted += uncommitted.size();
+            uncommitted.clear();
+        }
+
+        private void retryIndividually(Connection conn, PreparedStatement pstmt, List<Record> uncommitted, Report report) throws SQLException {
+            conn.rollback();
+            pstmt.clearBatch();
+            for (Record record : uncommitted) {
+                try {
+                    bind(pstmt, record);
+                    pstmt.executeUpdate();
+                    conn.commit();
+                    report.inserted++;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    report.fail(record.line, e.getMessage());
+                }
+            }
+            uncommitted.clear();
+        }
+
+        static class JsonlRecordReader implements RecordReader {
+            private final BufferedReader reader;
+            private long lineNumber;
+
+            JsonlRecordReader(BufferedReader reader) {
+                this.reader = reader;
+            }
+
+            @Override
+            public Record next() throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line == null) return null;
+                    lineNumber++;
+                } while (line.trim().isEmpty());
+
+                try {
+                    Map<String, Object> obj = Json.parseObject(line);
+                    return new Record(lineNumber, string(obj.get("title")), string(obj.get("body")),
+                            string(obj.get("author")), string(obj.get("created_at")));
+                } catch (IllegalArgumentException e) {
+                    return Record.malformed(lineNumber, "invalid JSON: " + e.getMessage());
+                }
+            }
+
+            private static String string(Object value) {
+                return value == null ? null : value.toString();
+            }
+        }
+
+        /** RFC 4180 CSV with a header row; quoted fields may contain commas, quotes and newlines. */
+        static class CsvRecordReader implements RecordReader {
+            private final BufferedReader reader;
+            private long lineNumber;
+            private final Map<String, Integer> columns = new HashMap<>();
+
+            CsvRecordReader(BufferedReader reader) throws IOException {
+                this.reader = reader;
+                List<String> header = readRow();
+                if (header == null) return;
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+
+            @Override
+            public Record next() throws IOException {
+                List<String> row;
+                long line;
+                do {
+                    line = lineNumber + 1;
+                    row = readRow();
+                    if (row == null) return null;
+                } while (row.size() == 1 && row.get(0).isEmpty());
+
+                if (row.size() != columns.size()) {
+                    return Record.malformed(line, "expected " + columns.size() + " fields but found " + row.size());
+                }
+                return new Record(line, field(row, "title"), field(row, "body"), field(row, "author"), field(row, "created_at"));
+            }
+
+            private String field(List<String> row, String name) {
+                Integer index = columns.get(name);
+                return index == null ? null : row.get(index);
+            }
+
+            private List<String> readRow() throws IOException {
+                int c = reader.read();
+                if (c == -1) return null;
+                lineNumber++;
+
+                List<String> fields = new ArrayList<>();
+                StringBuilder field = new StringBuilder();
+                boolean quoted = false;
+                while (true) {
+                    if (c == -1) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    char ch = (char) c;
+                    if (quoted) {
+                        if (ch == '"') {
+                            reader.mark(1);
+                            int following = reader.read();
+                            if (following == '"') {
+                                field.append('"');
+                            } else {
+                                quoted = false;
+                                reader.reset();
+                            }
+                        } else {
+                            if (ch == '\n') lineNumber++;
+                            field.append(ch);
+                        }
+                    } else if (ch == '"') {
+                        quoted = true;
+                    } else if (ch == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else if (ch == '\n') {
+                        fields.add(field.toString());
+                        return fields;
+                    } else if (ch != '\r') {
+                        field.append(ch);
+                    }
+                    c = reader.read();
+                }
+            }
+        }
+
+        /** Headless entry point: {@code import <file> [--format jsonl|csv] [--batch-size N] [--commit-every N]}. */
+        static int runCommand(String[] args) {
+            if (args.length < 1) {
+                System.err.println("Usage: NewspaperApp import <file.jsonl|file.csv> [--format jsonl|csv] [--batch-size N] [--commit-every N]");
+                return 2;
+            }
+            Path file = Paths.get(args[0]);
+            String format = null;
+            int batchSize = 1000;
+            int commitEvery = 10_000;
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    System.err.println("Missing value for " + args[i]);
+                    return 2;
+                }
+                switch (args[i]) {
+                    case "--format": format = args[i + 1]; break;
+                    case "--batch-size": batchSize = Integer.parseInt(args[i + 1]); break;
+                    case "--commit-every": commitEvery = Integer.parseInt(args[i + 1]); break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        return 2;
+                }
+            }
+
+            try (NewsData model = new NewsData()) {
+                Report report = new BulkImporter(model, batchSize, commitEvery).importFile(file, format);
+                System.out.println("Import finished: " + report);
+                for (String failure : report.failures) {
+                    System.err.println("  rejected " + failure);
+                }
+                if (report.failed > report.failures.size()) {
+                    System.err.println("  ... and " + (report.failed - report.failures.size()) + " more rejected rows");
+                }
+                return report.failed == 0 ? 0 : 1;
+            } catch (IOException | SQLException | IllegalArgumentException e) {
+                System.err.println("Import failed: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Headless JSON API over {@link NewsData}, served by the JDK's built-in HTTP server.
+     * <pre>
+     *   GET    /api/news?limit=N&amp;after=CURSOR   feed page, newest first; "next" is the cursor for the following page
+     *   GET    /api/news/{id}                    one article with its body
+     *   POST   /api/login                        {"username","password"} -> {"token",...}
+     *   POST   /api/news                         {"title","body"}, needs "Authorization: Bearer TOKEN"
+     *   PUT    /api/news/{id}                    {"title","body"}, author only
+     *   DELETE /api/news/{id}                    author only
+     * </pre>
+     * GET responses carry an ETag and answer a matching If-None-Match with 304. A feed
+     * page's tag is the change-log position, checked before the page query is run; an
+     * article's tag is its row version, {@code "a<id>-v<version>"}, read with the article
+     * through {@link NewsData#findArticle}. PUT accepts that tag in If-Match and answers
+     * 412 when the article has moved on.
+     * <p>
+     * Requests run on a fixed pool with a bounded queue. The server's dispatcher thread
+     * only hands each exchange to the pool; when the pool and queue are both full it
+     * answers 503 with Retry-After at once, so a slow handler never stalls accepts or
+     * the cheap 304 paths of other connections.
+     */
+    static final class ApiServer implements AutoCloseable {
+        private static final int MAX_REQUEST_BYTES = 1 << 20;
+        private static final int MAX_PAGE = 500;
+
+        private static final class HttpError extends Exception {
+            final int status;
+
+            HttpError(int status, String message) {
+                super(message);
+                this.status = status;
+            }
+        }
+
+        private static final class Session {
+            final User user;
+            final long expiresAt;
+
+            Session(User user, long expiresAt) {
+                this.user = user;
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        private final NewsData model;
+        private final HttpServer server;
+        private final ThreadPoolExecutor executor;
+        private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+        private final long sessionTtlNanos = TimeUnit.MINUTES.toNanos(AppConfig.getLong("newsdata.api.sessionTtlMinutes", 60L));
+        private final SecureRandom random = new SecureRandom();
+        private final ScheduledExecutorService changePoller;
+        private final TombstonePurger purger;
+        private final PublishScheduler publisher;
+
+        ApiServer(NewsData model, InetSocketAddress address, int threads, int queueCapacity) throws IOException {
+            this.model = model;
+            this.server = HttpServer.create(address, AppConfig.getInt("newsdata.api.backlog", 1024));
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "newsdata-api-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            this.executor.allowCoreThreadTimeOut(true);
+            server.createContext("/api/", this::dispatch);
+            this.changePoller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "newsdata-api-changes");
+                t.setDaemon(true);
+                return t;
+            });
+            this.purger = new TombstonePurger(model);
+            this.publisher = new PublishScheduler(model);
+        }
+
+        void start() throws SQLException {
+            ChangeCursor cursor = new ChangeCursor(model.getLatestChangeSeq());
+            long intervalMs = AppConfig.getLong("newsdata.changes.pollMs", 2000L);
+            if (intervalMs > 0) {
+                changePoller.scheduleWithFixedDelay(() -> pollChanges(cursor), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            }
+            purger.start();
+            publisher.start();
+            server.start();
+        }
+
+        /**
+         * Reading the change log is what evicts bodies edited by other clients from this
+         * server's body cache, so article ETags change when the article does. It also ends
+         * the sessions of users deleted elsewhere.
+         */
+        private void pollChanges(ChangeCursor cursor) {
+            try {
+                int batch = AppConfig.getInt("newsdata.changes.batchSize", 500);
+                List<FeedChange> changes;
+                List<FeedChange> fresh;
+                do {
+                    changes = model.getChangesSince(cursor.from(), batch);
+                    fresh = cursor.accept(changes, System.nanoTime());
+                    for (FeedChange change : fresh) {
+                        if (change.op == FeedChange.Op.DELETE_USER) {
+                            sessions.values().removeIf(s -> s.user.getId() == change.authorId);
+                        }
+                    }
+                } while (!fresh.isEmpty() && changes.size() == batch);
+            } catch (SQLException e) {
+                // Recorded by getChangesSince; the next run retries from the same cursor.
+            }
+        }
+
+        int getPort() {
+            return server.getAddress().getPort();
+        }
+
+        @Override
+        public void close() {
+            changePoller.shutdownNow();
+            purger.close();
+            publisher.close();
+            server.stop(1);
+            executor.shutdown();
+        }
+
+        /** Runs on the dispatcher thread: queues the exchange, or turns it away if the pool is saturated. */
+        private void dispatch(HttpExchange exchange) throws IOException {
+            try {
+                executor.execute(() -> {
+                    try {
+                        handle(exchange);
+                    } catch (IOException e) {
+                        // Client went away; already recorded on the request's timer.
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                Metrics.start("http_rejected").stop();
+                try {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendError(exchange, 503, "Server busy; retry shortly");
+                } finally {
+                    exchange.close();
+                }
+            }
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String route = "other";
+            Metrics.OpTimer timer = null;
+            try {
+                if (path.equals("/api/news") || path.equals("/api/news/")) {
+                    route = method.equals("POST") ? "createNews" : "feed";
+                    timer = Metrics.start("http_" + route);
+                    if (method.equals("GET")) getFeed(exchange);
+                    else if (method.equals("POST")) createNews(exchange);
+                    else throw new HttpError(405, "Use GET or POST");
+                } else if (path.startsWith("/api/news/")) {
+                    int newsId = parseId(path.substring("/api/news/".length()));
+                    route = method.equals("GET") ? "article" : method.equals("PUT") ? "updateNews" : "deleteNews";
+                    timer = Metrics.start("http_" + route);
+                    switch (method) {
+                        case "GET": getArticle(exchange, newsId); break;
+                        case "PUT": updateNews(exchange, newsId); break;
+                        case "DELETE": deleteNews(exchange, newsId); break;
+                        default: throw new HttpError(405, "Use GET, PUT or DELETE");
+                    }
+                } else if (path.equals("/api/login")) {
+                    route = "login";
+                    timer = Metrics.start("http_login");
+                    if (!method.equals("POST")) throw new HttpError(405, "Use POST");
+                    login(exchange);
+                } else {
+                    throw new HttpError(404, "No such endpoint");
+                }
+            } catch (HttpError e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (SQLException e) {
+                if (timer != null) timer.fail(e);
+                sendError(exchange, 503, "Database unavailable");
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IOException e) {
+                if (timer != null) timer.fail(e);
+                throw e;
+            } finally {
+                if (timer != null) timer.stop();
+                exchange.close();
+            }
+        }
+
+        private void getFeed(HttpExchange exchange) throws IOException, SQLException, HttpError {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int limit = Math.min(MAX_PAGE, Math.max(1, Integer.parseInt(query.getOrDefault("limit", "50"))));
+            FeedCursor after = parseCursor(query.get("after"));
+            String author = query.get("author");
+
+            // The change-log position is read before the page, as in getFeedHead, so the
+            // tag can only be older than the content it is sent with, never newer.
+            long seq = model.getLatestChangeSeq();
+            String etag = "\"f" + seq + "\"";
+            if (notModified(exchange, etag)) return;
+            List<NewsRow> page = author != null ? model.getAuthorPage(Integer.parseInt(author), after, limit)
+                    : after != null ? model.getNewsPage(after, limit)
+                    : model.getFirstPage(seq, limit);
+
+            StringBuilder json = new StringBuilder(64 + page.size() * 128).append("{\"items\":[");
+            for (int i = 0; i < page.size(); i++) {
+                if (i > 0) json.append(',');
+                appendRow(json, page.get(i)).append('}');
+            }
+            json.append("],\"next\":");
+            json.append(page.size() < limit ? "null" : Json.quote(formatCursor(page.get(page.size() - 1).toCursor())));
+            send(exchange, 200, etag, json.append('}').toString());
+        }
+
+        private void getArticle(HttpExchange exchange, int newsId) throws IOException, SQLException, HttpError {
+            Article article = model.findArticle(newsId);
+            if (article == null) throw new HttpError(404, "No article " + newsId);
+            String etag = articleEtag(article);
+            if (notModified(exchange, etag)) return;
+            send(exchange, 200, etag, articleJson(article));
+        }
+
+        /** The article's row version, so a client can send it back in If-Match to edit safely. */
+        private static String articleEtag(Article article) {
+            return "\"a" + article.getRow().getNewsId() + "-v" + article.getVersion() + "\"";
+        }
+
+        private static String articleJson(Article article) {
+            return appendRow(new StringBuilder(article.getBody().length() + 160), article.getRow())
+                    .append(",\"version\":").append(article.getVersion())
+                    .append(",\"body\":").append(Json.quote(article.getBody())).append('}').toString();
+        }
+
+        /**
+         * Version named by the If-Match header, or ANY_VERSION without one. A tag that is not
+         * one of this article's ETags can never match, so it maps to a version that never exists.
+         */
+        private static int expectedVersion(HttpExchange exchange, int newsId) {
+            String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+            if (ifMatch == null || ifMatch.trim().equals("*")) return NewsData.ANY_VERSION;
+            String prefix = "\"a" + newsId + "-v";
+            String tag = ifMatch.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Integer.parseInt(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException e) {
+                    // falls through to the never-matching version
+                }
+            }
+            return Integer.MIN_VALUE;
+        }
+
+        private void login(HttpExchange exchange) throws IOException, HttpError {
+            Map<String, Object> request = readJson(exchange);
+            User user;
+            try {
+                user = model.authenticateUser(requireString(request, "username"), requireString(request, "password"));
+            } catch (LoginBlockedException e) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(e.retryAfterSeconds()));
+                throw new HttpError(429, e.getMessage());
+            }
+            if (user == null) throw new HttpError(401, "Invalid username or password");
+
+            byte[] raw = new byte[32];
+            random.nextBytes(raw);
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+            long now = System.nanoTime();
+            if (sessions.size() > 10_000) {
+                sessions.values().removeIf(s -> now - s.expiresAt > 0);
+            }
+            sessions.put(token, new Session(user, now + sessionTtlNanos));
+            send(exchange, 200, null, "{\"token\":" + Json.quote(token) + ",\"userId\":" + user.getId()
+                    + ",\"username\":" + Json.quote(user.getUsername()) + "}");
+        }
+
+        private void createNews(HttpExchange exchange) throws IOException, SQLException, HttpError {
+            User user = requireUser(exchange);
+            Map<String, Object> request = readJson(exchange);
+            Object publishField = request.get("publish_at");
+            Timestamp publishAt;
+            try {
+                publishAt = publishField instanceof String ? parsePublishTime((String) publishField) : null;
+            } catch (DateTimeParseException e) {
+                throw new HttpError(400, "publish_at must look like 2025-11-27T08:00");
+            }
+            if (publishAt != null) {
+                int newsId = model.scheduleNews(requireString(request, "title"), requireString(request, "body"), user.getId(), publishAt);
+                if (newsId < 0) throw new HttpError(500, "Could not schedule the article");
+                publisher.schedule(publishAt);
+                send(exchange, 202, null, "{\"id\":" + newsId + ",\"publish_at\":"
+                        + Json.quote(publishAt.toLocalDateTime().toString()) + "}");
+                return;
+            }
+            NewsRow row = model.addNews(requireString(request, "title"), requireString(request, "body"), user.getId());
+            if (row == null) throw new HttpError(500, "Could not add the article");
+            exchange.getResponseHeaders().set("Location", "/api/news/" + row.getNewsId());
+            send(exchange, 201, null, appendRow(new StringBuilder(), row).append('}').toString());
+        }
+
+        private void updateNews(HttpExchange exchange, int newsId) throws IOException, SQLException, HttpError {
+            User user = requireUser(exchange);
+            requireAuthor(user, newsId);
+            Map<String, Object> request = readJson(exchange);
+            ModifyResult result = model.modifyNews(newsId, requireString(request, "title"), requireString(request, "body"),
+                    expectedVersion(exchange, newsId));
+            switch (result.status) {
+                case NOT_FOUND:
+                    throw new HttpError(404, "No article " + newsId);
+                case CONFLICT:
+                    send(exchange, 412, articleEtag(result.current), articleJson(result.current));
+                    return;
+                default:
+                    if (result.current != null) exchange.getResponseHeaders().set("ETag", articleEtag(result.current));
+                    exchange.sendResponseHeaders(204, -1);
+            }
+        }
+
+        private void deleteNews(HttpExchange exchange, int newsId) throws IOException, SQLException, HttpError {
+            User user = requireUser(exchange);
+            requireAuthor(user, newsId);
+            if (!model.deleteNews(newsId)) throw new HttpError(500, "Could not delete article " + newsId);
+            exchange.sendResponseHeaders(204, -1);
+        }
+
+        /** The session's user, who must still exist: a deleted account's tokens stop working at once. */
+        private User requireUser(HttpExchange exchange) throws SQLException, HttpError {
+            String header = exchange.getRequestHeaders().getFirst("Authorization");
+            if (header == null || !header.startsWith("Bearer ")) throw new HttpError(401, "Log in first");
+            String token = header.substring("Bearer ".length()).trim();
+            Session session = sessions.get(token);
+            if (session == null || System.nanoTime() - session.expiresAt > 0 || !model.isLiveUser(session.user.getId())) {
+                sessions.remove(token);
+                throw new HttpError(401, "Session expired; log in again");
+            }
+            return session.user;
+        }
+
+        private void requireAuthor(User user, int newsId) throws SQLException, HttpError {
+            NewsRow row = model.findNewsRow(newsId);
+            if (row == null) throw new HttpError(404, "No article " + newsId);
+            if (user.getId() != row.getAuthorId()) {
+                throw new HttpError(403, "You can only change your own articles");
+            }
+        }
+
+        private static StringBuilder appendRow(StringBuilder json, NewsRow row) {
+            return json.append("{\"id\":").append(row.getNewsId())
+                    .append(",\"title\":").append(Json.quote(row.getTitle()))
+                    .append(",\"createdAt\":").append(Json.quote(row.getCreatedAt().toLocalDateTime().toString()))
+                    .append(",\"author\":").append(Json.quote(row.getAuthorName()));
+        }
+
+        /** Cursor as "epochMillis:newsId"; opaque to clients, who just echo "next" back. */
+        private static String formatCursor(FeedCursor cursor) {
+            return cursor.getCreatedAt().getTime() + ":" + cursor.getNewsId();
+        }
+
+        private static FeedCursor parseCursor(String value) {
+            if (value == null || value.isEmpty()) return null;
+            int colon = value.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Malformed cursor: " + value);
+            return new FeedCursor(new Timestamp(Long.parseLong(value.substring(0, colon))),
+                    Integer.parseInt(value.substring(colon + 1)));
+        }
+
+        private static int parseId(String value) throws HttpError {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new HttpError(404, "No such article");
+            }
+        }
+
+        private static Map<String, String> parseQuery(String rawQuery) {
+            Map<String, String> params = new HashMap<>();
+            if (rawQuery == null) return params;
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+            return params;
+        }
+
+        private static Map<String, Object> readJson(HttpExchange exchange) throws IOException, HttpError {
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_REQUEST_BYTES + 1);
+            if (body.length > MAX_REQUEST_BYTES) throw new HttpError(413, "Request body too large");
+            return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+
+        private static String requireString(Map<String, Object> request, String field) {
+            Object value = request.get(field);
+            if (!(value instanceof String) || ((String) value).trim().isEmpty()) {
+                throw new IllegalArgumentException("Missing \"" + field + "\"");
+            }
+            return (String) value;
+        }
+
+        private static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch == null) return false;
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals(etag) || tag.equals("*")) {
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.sendResponseHeaders(304, -1);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void send(HttpExchange exchange, int status, String etag, String json) throws IOException {
+            send(exchange, status, etag, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void send(HttpExchange exchange, int status, String etag, byte[] body) throws IOException {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            if (etag != null) {
+                headers.set("ETag", etag);
+                headers.set("Cache-Control", "no-cache");
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+            send(exchange, status, null, "{\"error\":" + Json.quote(message) + "}");
+        }
+
+        static int runCommand(String[] args) {
+            String host = AppConfig.get("newsdata.api.host", "0.0.0.0");
+            int port = AppConfig.getInt("newsdata.api.port", 8080);
+            int threads = AppConfig.getInt("newsdata.api.threads", 64);
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    System.err.println("Missing value for " + args[i]);
+                    return 2;
+                }
+                switch (args[i]) {
+                    case "--host": host = args[i + 1]; break;
+                    case "--port": port = Integer.parseInt(args[i + 1]); break;
+                    case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        System.err.println("Usage: NewspaperApp serve [--host H] [--port N] [--threads N]");
+                        return 2;
+                }
+            }
+
+            NewsData model = new NewsData();
+            try {
+                model.connect();
+            } catch (FeedPlanException e) {
+                System.err.println(e.getMessage() + " Set newsdata.schema.verifyPlan=false to start anyway.");
+                model.close();
+                return 1;
+            } catch (SQLException e) {
+                System.err.println("Database connection failed (" + model.describe() + ")");
+                model.close();
+                return 1;
+            }
+            try {
+                ApiServer api = new ApiServer(model, new InetSocketAddress(host, port), threads,
+                        AppConfig.getInt("newsdata.api.queueCapacity", 1024));
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    api.close();
+                    model.close();
+                }, "newsdata-api-shutdown"));
+                api.start();
+                System.out.println("Serving the news API on http://" + host + ":" + api.getPort() + "/api/news");
+                return 0;
+            } catch (IOException | SQLException e) {
+                System.err.println("Could not start the API server: " + e.getMessage());
+                model.close();
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Streams the news archive, joined with author names, to JSONL or CSV, optionally
+     * gzip-compressed. Rows come from a forward-only streaming ResultSet in News_id order
+     * and are encoded straight into one reusable direct buffer that is drained to a
+     * FileChannel. Memory use is bounded by the buffer and the driver's fetch size
+     * however large the archive is.
+     * <p>
+     * The output uses the same field names as {@link BulkImporter} reads. Passing the
+     * last exported News_id as {@code afterNewsId} resumes an interrupted export by
+     * appending to the existing file. The buffer can drain in the middle of a row, so an
+     * export that fails cuts the file back to the end of the last row wholly written,
+     * which is the row {@code lastNewsId} names; a file that still ends mid-row (say, after
+     * a crash) is refused rather than appended to. A gzip file cut off mid-stream cannot
+     * be appended to at all, so a compressed export resumes into a new file.
+     */
+    static class ArchiveExporter {
+        private static final String SELECT_SQL = "SELECT N.News_id, N.Title, N.Body, N.Created_at, U.Name AS Author_Name " +
+                "FROM news N JOIN user U ON N.U_id = U.U_id WHERE N.News_id > ? AND " + NewsData.LIVE + " ORDER BY N.News_id";
+        private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+        private static final int BUFFER_BYTES = 256 * 1024;
+
+        enum Format { JSONL, CSV }
+
+        static class Report {
+            long rows;
+            long bytes;
+            long bytesWritten;
+            long elapsedNanos;
+            /** Last News_id whose row was handed to the output; pass it as --after to resume. */
+            long lastNewsId;
+
+            double rowsPerSecond() {
+                return elapsedNanos == 0 ? 0.0 : rows / (elapsedNanos / 1e9);
+            }
+
+            double megabytesPerSecond() {
+                return elapsedNanos == 0 ? 0.0 : bytes / 1e6 / (elapsedNanos / 1e9);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("rows=%d bytes=%d written=%d elapsed=%.2fs rate=%.0f rows/s %.1f MB/s last_id=%d",
+                        rows, bytes, bytesWritten, elapsedNanos / 1e9, rowsPerSecond(), megabytesPerSecond(), lastNewsId);
+            }
+        }
+
+        private final NewsData model;
+
+        ArchiveExporter(NewsData model) {
+            this.model = model;
+        }
+
+        /** Guesses the format from the file name: .csv or .jsonl, each optionally followed by .gz. */
+        static Format formatOf(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+            return name.endsWith(".csv") ? Format.CSV : Format.JSONL;
+        }
+
+        static boolean isGzip(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+        }
+
+        Report export(Path file, Format format, boolean gzip, long afterNewsId, Consumer<Report> progress)
+                throws IOException, SQLException {
+            boolean append = afterNewsId > 0 && Files.exists(file);
+            if (append && gzip) {
+                throw new IllegalArgumentException("Cannot append to the compressed archive " + file
+                        + "; resume with --after " + afterNewsId + " into a new file");
+            }
+            if (append) {
+                requireRowBoundary(file, format);
+            }
+            Report report = new Report();
+            report.lastNewsId = afterNewsId;
+            long start = System.nanoTime();
+            long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+
+            GZIPOutputStream compressor = null;
+            long committedSize = -1;
+            boolean complete = false;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+                 WritableByteChannel out = gzip
+                         ? Channels.newChannel(compressor = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024))
+                         : channel;
+                 Connection conn = model.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                long initialSize = channel.size();
+                committedSize = initialSize;
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+                CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                StringBuilder line = new StringBuilder(4096);
+                long bufferedLastId = afterNewsId;
+
+                if (format == Format.CSV && !append) {
+                    line.append("id,title,body,author,created_at\r\n");
+                    encode(line, encoder, buffer, out, report);
+                }
+
+                pstmt.setFetchSize(model.scanFetchSize());
+                pstmt.setLong(1, afterNewsId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (Thread.interrupted()) {
+                            throw new InterruptedIOException("Export cancelled after News_id " + report.lastNewsId);
+                        }
+                        int newsId = rs.getInt("News_id");
+                        line.setLength(0);
+                        appendRow(line, format, newsId, rs.getString("Title"), rs.getString("Body"),
+                                rs.getString("Author_Name"), rs.getTimestamp("Created_at"));
+                        long rowStart = report.bytes;
+                        if (encode(line, encoder, buffer, out, report) > 0) {
+                            // The buffer was drained, so every row before this one is in the file.
+                            report.lastNewsId = bufferedLastId;
+                            committedSize = initialSize + rowStart;
+                        }
+                        bufferedLastId = newsId;
+                        report.rows++;
+
+                        long now = System.nanoTime();
+                        if (now >= nextProgress) {
+                            report.elapsedNanos = now - start;
+                            report.bytesWritten = channel.size() - initialSize;
+                            progress.accept(report);
+                            nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                        }
+                    }
+                }
+                drain(buffer, out);
+                report.lastNewsId = bufferedLastId;
+                if (compressor != null) {
+                    compressor.finish();
+                }
+                report.bytesWritten = channel.size() - initialSize;
+                complete = true;
+            } catch (SQLException e) {
+                throw new SQLException(e.getMessage() + " (resume with --after " + report.lastNewsId + ")",
+                        e.getSQLState(), e.getErrorCode(), e);
+            } catch (IOException e) {
+                throw new IOException(e.getMessage() + " (resume with --after " + report.lastNewsId + ")", e);
+            } finally {
+                if (!complete && !gzip && committedSize >= 0) {
+                    truncate(file, committedSize);
+                }
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            return report;
+        }
+
+        /** Cuts a failed export back to its last whole row; reopens the file, as an interrupt closes the channel. */
+        private static void truncate(Path file, long size) {
+            boolean interrupted = Thread.interrupted();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            } catch (IOException e) {
+                // The resume check refuses the file if it still ends mid-row.
+                Metrics.event("export_truncate_failed", "export " + file, e);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /** Throws unless {@code file} is empty or ends with a row terminator, so appending cannot split a row. */
+        private static void requireRowBoundary(Path file, Format format) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size == 0) return;
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, size - 1);
+                if (last.get(0) != '\n') {
+                    throw new IOException(file + " ends in the middle of a " + format + " row; "
+                            + "export into a new file instead of appending");
+                }
+            }
+        }
+
+        private static void appendRow(StringBuilder line, Format format, int newsId, String title, String body,
+                                      String author, Timestamp createdAt) {
+            String created = createdAt.toLocalDateTime().toString();
+            if (format == Format.JSONL) {
+                line.append("{\"id\":").append(newsId)
+                        .append(",\"title\":").append(Json.quote(title))
+                        .append(",\"body\":").append(Json.quote(body))
+                        .append(",\"author\":").append(Json.quote(author))
+                        .append(",\"created_at\":").append(Json.quote(created))
+                        .append("}\n");
+            } else {
+                line.append(newsId).append(',');
+                appendCsvField(line, title).append(',');
+                appendCsvField(line, body).append(',');
+                appendCsvField(line, author).append(',');
+                line.append(created).append("\r\n");
+            }
+        }
+
+        private static StringBuilder appendCsvField(StringBuilder line, String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            return line.append('"');
+        }
+
+        /**
+         * Encodes {@code chars} into {@code buffer}, draining it to {@code out} whenever it
+         * fills. Returns the number of drains; counts the encoded bytes in the report.
+         */
+        private static int encode(CharSequence chars, CharsetEncoder encoder, ByteBuffer buffer,
+                                  WritableByteChannel out, Report report) throws IOException {
+            CharBuffer in = CharBuffer.wrap(chars);
+            int drains = 0;
+            int start = buffer.position();
+            encoder.reset();
+            while (encoder.encode(in, buffer, true).isOverflow()) {
+                report.bytes += buffer.position() - start;
+                drain(buffer, out);
+                start = 0;
+                drains++;
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                report.bytes += buffer.position() - start;
+                drain(buffer, out);
+                start = 0;
+                drains++;
+            }
+            report.bytes += buffer.position() - start;
+            return drains;
+        }
+
+        private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        static int runCommand(String[] args) {
+            if (args.length < 1) {
+                System.err.println("Usage: NewspaperApp export <file.jsonl|file.csv>[.gz] [--format jsonl|csv] [--gzip true|false] [--after NEWS_ID]");
+                return 2;
+            }
+            Path file = Paths.get(args[0]);
+            Format format = formatOf(file);
+            boolean gzip = isGzip(file);
+            long after = 0;
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    System.err.println("Missing value for " + args[i]);
+                    return 2;
+                }
+                switch (args[i]) {
+                    case "--format": format = Format.valueOf(args[i + 1].toUpperCase(Locale.ROOT)); break;
+                    case "--gzip": gzip = Boolean.parseBoolean(args[i + 1]); break;
+                    case "--after": after = Long.parseLong(args[i + 1]); break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        return 2;
+                }
+            }
+
+            try (NewsData model = new NewsData()) {
+                Report report = new ArchiveExporter(model).export(file, format, gzip, after,
+                        r -> System.out.println("Export progress: " + r));
+                System.out.println("Export finished: " + report);
+                return 0;
+            } catch (IOException | SQLException | IllegalArgumentException e) {
+                System.err.println("Export failed: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Minimal JSON reader and writer for the file formats and APIs in this app, so they
+     * need no third-party library. Objects parse to LinkedHashMap, arrays to ArrayList,
+     * numbers to Long or Double.
+     */
+    static final class Json {
+        private final String text;
+        private int pos;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        static Object parse(String text) {
+            Json parser = new Json(text);
+            parser.skipWhitespace();
+            Object value = parser.readValue();
+            parser.skipWhitespace();
+            if (parser.pos != text.length()) {
+                throw parser.error("Unexpected trailing characters");
+            }
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Map<String, Object> parseObject(String text) {
+            Object value = parse(text);
+            if (!(value instanceof Map)) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return (Map<String, Object>) value;
+        }
+
+        static String quote(String s) {
+            if (s == null) return "null";
+            StringBuilder sb = new StringBuilder(s.length() + 2);
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+            return sb.append('"').toString();
+        }
+
+        private Object readValue() {
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': return readObject();
+                case '[': return readArray();
+                case '"': return readString();
+                case 't': return readLiteral("true", Boolean.TRUE);
+                case 'f': return readLiteral("false", Boolean.FALSE);
+                case 'n': return readLiteral("null", null);
+                default: return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("Expected a string key");
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                map.put(key, readValue());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') return map;
+                if (c != ',') throw error("Expected ',' or '}'");
+            }
+        }
+
+        private List<Object> readArray() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                skipWhitespace();
+                list.add(readValue());
+                skipWhitespace();
+                char c = next();
+                if (c == ']') return list;
+                if (c != ',') throw error("Expected ',' or ']'");
+            }
+        }
+
+        private String readString() {
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("Bad unicode escape");
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: throw error("Bad escape '\\" + e + "'");
+                }
+            }
+        }
+
+        private Object readLiteral(String literal, Object value) {
+            if (!text.startsWith(literal, pos)) throw error("Unexpected token");
+            pos += literal.length();
+            return value;
+        }
+
+        private Object readNumber() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            if (number.isEmpty()) throw error("Unexpected character '" + text.charAt(start) + "'");
+            try {
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw error("Bad number '" + number + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) throw error("Expected '" + c + "'");
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+
+    /**
+     * Application settings. Values come from -D system properties first, then from
+     * newspaper.properties in the working directory (or the file named by
+     * -Dnewsdata.config), then from the defaults passed by the caller.
+     */
+    static final class AppConfig {
+        private static final Properties FILE = load();
+
+        private AppConfig() {
+        }
+
+        private static Properties load() {
+            Properties props = new Properties();
+            Path path = Paths.get(System.getProperty("newsdata.config", "newspaper.properties"));
+            if (Files.isRegularFile(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    props.load(reader);
+                } catch (IOException e) {
+                    System.err.println("Could not read config file " + path + ": " + e.getMessage());
+                }
+            }
+            return props;
+        }
+
+        static String get(String key, String defaultValue) {
+            String value = System.getProperty(key);
+            if (value == null) {
+                value = FILE.getProperty(key);
+            }
+            return value == null ? defaultValue : value.trim();
+        }
+
+        static int getInt(String key, int defaultValue) {
+            String value = get(key, null);
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+
+        static long getLong(String key, long defaultValue) {
+            String value = get(key, null);
+            return value == null ? defaultValue : Long.parseLong(value);
+        }
+
+        static boolean getBoolean(String key, boolean defaultValue) {
+            String value = get(key, null);
+            return value == null ? defaultValue : Boolean.parseBoolean(value);
+        }
+    }
+
+    /**
+     * Supported storage backends. MYSQL is the production server; H2 runs in-process
+     * (in MySQL compatibility mode) for local runs, CI and benchmarks without external
+     * services. Each profile supplies its driver, default connection settings and the
+     * DDL options that differ between the two.
+     */
+    enum DbProfile {
+        MYSQL("com.mysql.cj.jdbc.Driver",
+                "jdbc:mysql://localhost:3306/newspaper_db?useUnicode=true&characterEncoding=UTF-8&serverTimezone=UTC&rewriteBatchedStatements=true",
+                "root", "wwe@75",
+                " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci"),
+        H2("org.h2.Driver",
+                "jdbc:h2:./data/newspaper_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+                "sa", "",
+                "");
+
+        final String driverClass;
+        final String defaultUrl;
+        final String defaultUser;
+        final String defaultPassword;
+        /** Character set clause appended to text columns and table definitions. */
+        final String charset;
+
+        DbProfile(String driverClass, String defaultUrl, String defaultUser, String defaultPassword, String charset) {
+            this.driverClass = driverClass;
+            this.defaultUrl = defaultUrl;
+            this.defaultUser = defaultUser;
+            this.defaultPassword = defaultPassword;
+            this.charset = charset;
+        }
+
+        /**
+         * Connector/J buffers a whole result set unless the fetch size is Integer.MIN_VALUE,
+         * which streams it row by row; H2 honours ordinary fetch sizes.
+         */
+        int streamingFetchSize(int rows) {
+            return this == MYSQL ? Integer.MIN_VALUE : rows;
+        }
+
+        static DbProfile fromConfig() {
+            String name = AppConfig.get("newsdata.db.profile", "mysql");
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown newsdata.db.profile '" + name + "' (expected mysql or h2)");
+            }
+        }
+    }
+
+    /** Read-only JMX view of one operation's counters and latency percentiles. */
+    public interface OperationStatsMXBean {
+        long getCount();
+        long getErrorCount();
+        double getErrorRate();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP95Millis();
+        double getP99Millis();
+        double getMaxMillis();
+    }
+
+    /**
+     * Process-wide latency and error metrics for NewsData and the table loads that use it.
+     * Each operation gets a histogram of total latency plus one per phase (connect, execute,
+     * materialize, render, ...), all registered as MXBeans under {@code newspaper:type=Operation}.
+     * Failures and slow operations are reported as one-line key=value events carrying the
+     * phase timings. Set {@code newsdata.metrics.logIntervalSeconds} to also log a periodic
+     * summary line.
+     */
+    static final class Metrics {
+        private static final Map<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+        private static final ThreadLocal<OpTimer> CURRENT = new ThreadLocal<>();
+        private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("newsdata.metrics.slowOpMs", 500L));
+        private static final long LOG_INTERVAL_SECONDS = AppConfig.getLong("newsdata.metrics.logIntervalSeconds", 0L);
+        private static volatile Consumer<String> eventSink = System.err::println;
+
+        static {
+            if (LOG_INTERVAL_SECONDS > 0) {
+                ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "newsdata-metrics-log");
+                    t.setDaemon(true);
+                    return t;
+                });
+                logger.scheduleAtFixedRate(() -> {
+                    String summary = summary();
+                    if (!summary.isEmpty()) {
+                        System.out.println("metrics " + summary);
+                    }
+                }, LOG_INTERVAL_SECONDS, LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+
+        private Metrics() {
+        }
+
+        /** Starts timing an operation on this thread; getConnection() marks its connect phase. */
+        static OpTimer start(String operation) {
+            OpTimer timer = new OpTimer(operation, CURRENT.get());
+            CURRENT.set(timer);
+            return timer;
+        }
+
+        /** Starts timing an operation that spans threads, such as a background load plus EDT render. */
+        static OpTimer startAsync(String operation) {
+            return new OpTimer(operation, null);
+        }
+
+        static void mark(String phase) {
+            OpTimer timer = CURRENT.get();
+            if (timer != null) {
+                timer.mark(phase);
+            }
+        }
+
+        static OperationStats stats(String name) {
+            return OPERATIONS.computeIfAbsent(name, n -> {
+                OperationStats stats = new OperationStats();
+                try {
+                    ManagementFactory.getPlatformMBeanServer()
+                            .registerMBean(stats, new ObjectName("newspaper:type=Operation,name=" + n));
+                } catch (JMException e) {
+                    // Already registered by another instance, or JMX unavailable: metrics still work.
+                }
+                return stats;
+            });
+        }
+
+        static void setEventSink(Consumer<String> sink) {
+            eventSink = sink;
+        }
+
+        /** Whether periodic summaries are on, i.e. {@code newsdata.metrics.logIntervalSeconds} is set. */
+        static boolean isLogging() {
+            return LOG_INTERVAL_SECONDS > 0;
+        }
+
+        /** Emits a stats line such as a cache's counters to the event sink, as {@code event=<type> <stats>}. */
+        static void report(String type, Object stats) {
+            eventSink.accept("event=" + type + " " + stats);
+        }
+
+        /** Emits a structured event for a failure outside any timed operation. */
+        static void event(String type, String operation, Throwable error) {
+            StringBuilder sb = new StringBuilder("event=").append(type).append(" op=").append(operation);
+            appendError(sb, error);
+            eventSink.accept(sb.toString());
+        }
+
+        /** One line per top-level operation that has run: count, error rate and latency percentiles. */
+        static String summary() {
+            StringBuilder sb = new StringBuilder();
+            new TreeMap<>(OPERATIONS).forEach((name, stats) -> {
+                if (name.indexOf('.') >= 0 || stats.getCount() == 0) return;
+                if (sb.length() > 0) sb.append(" | ");
+                sb.append(String.format("%s n=%d err=%.1f%% p50=%.2fms p99=%.2fms max=%.2fms", name, stats.getCount(),
+                        stats.getErrorRate() * 100, stats.getP50Millis(), stats.getP99Millis(), stats.getMaxMillis()));
+            });
+            return sb.toString();
+        }
+
+        private static void appendError(StringBuilder sb, Throwable error) {
+            if (error == null) return;
+            if (error instanceof SQLException) {
+                SQLException sqlError = (SQLException) error;
+                sb.append(" sql_state=").append(sqlError.getSQLState()).append(" error_code=").append(sqlError.getErrorCode());
+            }
+            sb.append(" error=").append(error.getClass().getSimpleName())
+                    .append(" message=").append(Json.quote(String.valueOf(error.getMessage())));
+        }
+
+        static final class OpTimer {
+            private final String operation;
+            private final OpTimer parent;
+            private final long startNanos = System.nanoTime();
+            private long lastMark = startNanos;
+            private final Map<String, Long> phases = new LinkedHashMap<>(4);
+            private Throwable error;
+            private boolean done;
+
+            private OpTimer(String operation, OpTimer parent) {
+                this.operation = operation;
+                this.parent = parent;
+            }
+
+            /** Ends the current phase; time since the previous mark is attributed to {@code phase}. */
+            void mark(String phase) {
+                long now = System.nanoTime();
+                phases.merge(phase, now - lastMark, Long::sum);
+                lastMark = now;
+            }
+
+            void fail(Throwable e) {
+                error = e;
+            }
+
+            /** Discards the measurement, e.g. when the user cancelled the operation. */
+            void cancel() {
+                done = true;
+                unbind();
+            }
+
+            void stop() {
+                if (done) return;
+                done = true;
+                unbind();
+                long total = System.nanoTime() - startNanos;
+
+                stats(operation).record(total, error != null);
+                for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                    stats(operation + "." + phase.getKey()).record(phase.getValue(), false);
+                }
+                if (error != null || total >= SLOW_NANOS) {
+                    eventSink.accept(describe(error != null ? "op_failed" : "op_slow", total));
+                }
+            }
+
+            private void unbind() {
+                if (CURRENT.get() == this) {
+                    if (parent != null) {
+                        CURRENT.set(parent);
+                    } else {
+                        CURRENT.remove();
+                    }
+                }
+            }
+
+            private String describe(String type, long totalNanos) {
+                StringBuilder sb = new StringBuilder("event=").append(type).append(" op=").append(operation)
+                        .append(String.format(" total_ms=%.3f", totalNanos / 1e6));
+                for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                    sb.append(String.format(" %s_ms=%.3f", phase.getKey(), phase.getValue() / 1e6));
+                }
+                appendError(sb, error);
+                return sb.toString();
+            }
+        }
+    }
+
+    static final class OperationStats implements OperationStatsMXBean {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+
+        @Override public long getCount() { return count.sum(); }
+        @Override public long getErrorCount() { return errors.sum(); }
+        @Override public double getErrorRate() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : (double) errors.sum() / n;
+        }
+        @Override public double getMeanMillis() { return latency.mean() / 1e6; }
+        @Override public double getP50Millis() { return latency.percentile(0.50) / 1e6; }
+        @Override public double getP95Millis() { return latency.percentile(0.95) / 1e6; }
+        @Override public double getP99Millis() { return latency.percentile(0.99) / 1e6; }
+        @Override public double getMaxMillis() { return latency.max() / 1e6; }
+    }
+
+    /**
+     * Lock-free log-linear histogram of nanosecond latencies: each power of two is split
+     * into 16 linear sub-buckets, so percentiles are accurate to about 6%.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 16;
+        private static final int SUB_BITS = 4;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(value));
+            total.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /** Upper bound of the values that fall into {@code bucket}. */
+        static long bucketUpperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+
+        long percentile(double quantile) {
+            long n = total.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        double mean() {
+            long n = total.sum();
+            return n == 0 ? 0.0 : (double) sum.sum() / n;
+        }
+
+        long max() {
+            return max.get();
+        }
+    }
+
+    /**
+     * Bounded JDBC connection pool. Connections are handed out as proxies: closing one
+     * returns it to the pool, and prepareStatement(sql) / prepareStatement(sql, autoGeneratedKeys)
+     * calls are served from a per-connection LRU statement cache. Idle connections are validated on borrow and
+     * evicted in the background once they exceed the idle timeout.
+     */
+    private static class ConnectionPool implements AutoCloseable {
+
+        private final String url;
+        private final String user;
+        private final String password;
+        private final int minSize;
+        private final int maxSize;
+        private final long borrowTimeoutMillis;
+        private final long idleTimeoutMillis;
+        private final long validationIntervalMillis;
+        private final int statementCacheSize;
+
+        private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+        private final Semaphore permits;
+        private final AtomicInteger openCount = new AtomicInteger();
+        private final ScheduledExecutorService evictor;
+        private volatile boolean closed;
+
+        ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                       long borrowTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                       int statementCacheSize) {
+            if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+                throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+            }
+            this.url = url;
+            this.user = user;
+            this.password = password;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.borrowTimeoutMillis = borrowTimeoutMillis;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.validationIntervalMillis = validationIntervalMillis;
+            this.statementCacheSize = statementCacheSize;
+            this.permits = new Semaphore(maxSize, true);
+
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "newsdata-pool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1_000L, idleTimeoutMillis / 2);
+            evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        Connection borrow() throws SQLException {
+            if (closed) throw new SQLException("Connection pool is closed.");
+            try {
+                if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a pooled connection (max " + maxSize + ").");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+            }
+
+            try {
+                PooledConnection pc;
+                while ((pc = idle.pollFirst()) != null) {
+                    if (isUsable(pc)) {
+                        return pc.newHandle();
+                    }
+                    destroy(pc);
+                }
+                return open().newHandle();
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private boolean isUsable(PooledConnection pc) {
+            if (System.currentTimeMillis() - pc.lastUsed < validationIntervalMillis) {
+                return true;
+            }
+            try {
+                return pc.physical.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private PooledConnection open() throws SQLException {
+            Connection physical = DriverManager.getConnection(url, user, password);
+            openCount.incrementAndGet();
+            return new PooledConnection(physical);
+        }
+
+        private void release(PooledConnection pc) {
+            try {
+                if (closed || pc.broken) {
+                    destroy(pc);
+                    return;
+                }
+                try {
+                    if (!pc.physical.getAutoCommit()) {
+                        pc.physical.rollback();
+                        pc.physical.setAutoCommit(true);
+                    }
+                    pc.physical.clearWarnings();
+                } catch (SQLException e) {
+                    destroy(pc);
+                    return;
+                }
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private void destroy(PooledConnection pc) {
+            openCount.decrementAndGet();
+            pc.closeStatements();
+            try {
+                pc.physical.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        private void evictIdle() {
+            long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && openCount.get() > minSize) {
+                PooledConnection pc = it.next();
+                if (pc.lastUsed < cutoff && idle.remove(pc)) {
+                    destroy(pc);
+                }
+            }
+            while (!closed && openCount.get() < minSize) {
+                try {
+                    idle.offerLast(open());
+                } catch (SQLException e) {
+                    Metrics.event("pool_refill_failed", "ConnectionPool", e);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            evictor.shutdownNow();
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                destroy(pc);
+            }
+        }
+
+        /** Wraps a ResultSet so that closing it also closes the owning Statement and Connection. */
+        static ResultSet closingResultSet(ResultSet rs, Statement stmt, Connection conn) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                    try {
+                        rs.close();
+                        stmt.close();
+                    } finally {
+                        conn.close();
+                    }
+                    return null;
+                }
+                return invoke(rs, method, args);
+            };
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, handler);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private class PooledConnection {
+            final Connection physical;
+            volatile long lastUsed = System.currentTimeMillis();
+            volatile boolean broken;
+
+            private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) return false;
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException ignored) {
+                    }
+                    return true;
+                }
+            };
+
+            PooledConnection(Connection physical) {
+                this.physical = physical;
+            }
+
+            Connection newHandle() {
+                Handle handle = new Handle();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handle);
+            }
+
+            PreparedStatement cachedStatement(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+                String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "#keys" : sql;
+                PreparedStatement ps = statements.get(key);
+                if (ps == null || ps.isClosed()) {
+                    ps = physical.prepareStatement(sql, autoGeneratedKeys);
+                    if (statementCacheSize > 0) {
+                        statements.put(key, ps);
+                    } else {
+                        return ps;
+                    }
+                }
+                PreparedStatement cached = ps;
+                InvocationHandler handler = (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            cached.clearParameters();
+                            cached.clearBatch();
+                            return null;
+                        case "getConnection":
+                            return owner;
+                        default:
+                            return track(cached, method, args);
+                    }
+                };
+                return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+            }
+
+            void closeStatements() {
+                for (PreparedStatement ps : statements.values()) {
+                    try {
+                        ps.close();
+                    } catch (SQLException ignored) {
+                    }
+                }
+                statements.clear();
+            }
+
+            private Object track(Object target, Method method, Object[] args) throws Throwable {
+                try {
+                    return invoke(target, method, args);
+                } catch (SQLException e) {
+                    String state = e.getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        broken = true;
+                    }
+                    throw e;
+                }
+            }
+
+            private class Handle implements InvocationHandler {
+                private boolean released;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if (name.equals("close")) {
+                        if (!released) {
+                            released = true;
+                            release(PooledConnection.this);
+                        }
+                        return null;
+                    }
+                    if (name.equals("isClosed")) {
+                        return released;
+                    }
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    if (name.equals("prepareStatement") && args != null && args.length == 1) {
+                        return cachedStatement((String) args[0], Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                    }
+                    if (name.equals("prepareStatement") && args != null && args.length == 2 && args[1] instanceof Integer) {
+                        return cachedStatement((String) args[0], (Integer) args[1], (Connection) proxy);
+                    }
+                    return track(physical, method, args);
+                }
+            }
+        }
+    }
+
+    private class ButtonRenderer extends JButton implements TableCellRenderer {
+        private String text;
+        public ButtonRenderer(String text) {
+            setOpaque(true);
+            this.text = text;
+            setFocusPainted(false);
+            setBackground(new Color(220, 220, 220));
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+
+            setText(text);
+
+            if (column >= 6) {
+                setEnabled(tableModel.isEditable(table.convertRowIndexToModel(row)));
+            } else {
+                setEnabled(true);
+            }
+
+            if (isSelected) {
+                setForeground(table.getSelectionForeground());
+                setBackground(table.getSelectionBackground());
+            } else {
+                setForeground(table.getForeground());
+                setBackground(UIManager.getColor("Button.background"));
+            }
+            return this;
+        }
+    }
+
+    private class ButtonEditor extends DefaultCellEditor {
+        private JButton button;
+        private String label;
+        private boolean isPushed;
+        private JTable table;
+        private NewspaperApp app;
+        private String actionType;
+
+        public ButtonEditor(JCheckBox checkBox, JTable table, NewspaperApp app, String actionType) {
+            super(checkBox);
+            this.table = table;
+            this.app = app;
+            this.actionType = actionType;
+
+            button = new JButton();
+            button.setOpaque(true);
+            button.setBackground(new Color(220, 220, 220));
+
+            button.addActionListener(e -> {
+                isPushed = true;
+                fireEditingStopped();
+            });
+        }
+
+        @Override
+        public Component getTableCellEditorComponent(JTable table, Object value,
+                                                     boolean isSelected, int row, int column) {
+            label = (value == null) ? "" : value.toString();
+            button.setText(label);
+
+            if (column >= 6) {
+                button.setEnabled(tableModel.isEditable(table.convertRowIndexToModel(row)));
+            } else {
+                button.setEnabled(true);
+            }
+
+            isPushed = true;
+            return button;
+        }
+
+        @Override
+        public Object getCellEditorValue() {
+            if (isPushed) {
+                int selectedRow = table.convertRowIndexToModel(table.getEditingRow());
+                if (selectedRow != -1) {
+                    int newsId = tableModel.getNewsId(selectedRow);
+                    String title = tableModel.getTitle(selectedRow);
+                    String authorName = tableModel.getAuthorName(selectedRow);
+
+                    if (actionType.equals("View")) {
+                        app.showNewsDetails(newsId, title);
+                    } else if (actionType.equals("History")) {
+                        app.showNewsHistory(newsId, title);
+                    } else if (actionType.equals("Edit") || actionType.equals("Delete")) {
+
+                        if (app.currentUser != null && tableModel.isEditable(selectedRow)) {
+                            if (actionType.equals("Edit")) {
+                                app.handleModifyNews(newsId);
+                            } else if (actionType.equals("Delete")) {
+                                app.handleDeleteNews(newsId);
+                            }
+                        } else {
+                            if (app.currentUser != null) {
+                                JOptionPane.showMessageDialog(app, "You can only Edit/Delete your own articles! Author: " + authorName, "Access Denied", JOptionPane.ERROR_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(app, "Please log in to perform this action.", "Access Denied", JOptionPane.ERROR_MESSAGE);
+                            }
+                        }
+                    }
+                }
+            }
+            isPushed = false;
+            return label;
+        }
+
+        @Override
+        public boolean stopCellEditing() {
+            isPushed = false;
+            return super.stopCellEditing();
+        }
+    }
+}
\ No newline at end of file
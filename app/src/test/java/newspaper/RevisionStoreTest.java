@@ -0,0 +1,138 @@
+package newspaper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import newspaper.NewspaperApp.Article;
+import newspaper.NewspaperApp.DbProfile;
+import newspaper.NewspaperApp.NewsRow;
+import newspaper.NewspaperApp.Revision;
+import newspaper.NewspaperApp.RevisionStore;
+import newspaper.NewspaperApp.SchemaMigrator;
+
+/** Round trips of the revision delta codec, alone and through news_revision across checkpoints. */
+class RevisionStoreTest {
+    private static final String MULTI_BYTE = "Zürich – 東京 😀 naïve façade ";
+    private static final String PROSE = "The council met on Tuesday to discuss the harbour budget. ".repeat(12);
+
+    private Connection conn;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        conn = DriverManager.getConnection(
+                "jdbc:h2:mem:revisions;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER", "sa", "");
+        new SchemaMigrator(DbProfile.H2).migrate(conn);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        conn.close();
+    }
+
+    static Stream<Arguments> edits() {
+        String rotated = PROSE.substring(200) + PROSE.substring(0, 200);
+        String multi = MULTI_BYTE.repeat(20);
+        return Stream.of(
+                Arguments.of("empty to empty", "", ""),
+                Arguments.of("empty to text", "", PROSE),
+                Arguments.of("text to empty", PROSE, ""),
+                Arguments.of("identical", PROSE, PROSE),
+                Arguments.of("rotated", PROSE, rotated),
+                Arguments.of("insert in the middle", PROSE, PROSE.substring(0, 301) + "late addition" + PROSE.substring(301)),
+                Arguments.of("multi-byte identical", multi, multi),
+                Arguments.of("multi-byte shifted by one char", multi, multi.substring(1)),
+                Arguments.of("multi-byte prepended", multi, "😀é" + multi),
+                Arguments.of("split surrogates", "\uD83D", "\uDE00\uD83D"),
+                Arguments.of("surrogate pair across a block", "x".repeat(15) + "😀" + "y".repeat(40),
+                        "x".repeat(16) + "😀" + "y".repeat(40)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("edits")
+    void deltaRebuildsTarget(String name, String base, String target) throws IOException {
+        assertEquals(target, RevisionStore.apply(base, RevisionStore.encode(base, target)));
+    }
+
+    @Test
+    void randomEditsRebuildTarget() throws IOException {
+        Random random = new Random(42);
+        String body = PROSE + MULTI_BYTE.repeat(5);
+        for (int i = 0; i < 500; i++) {
+            String next = edit(body, random);
+            assertEquals(next, RevisionStore.apply(body, RevisionStore.encode(body, next)), "edit " + i);
+            body = next;
+        }
+    }
+
+    @Test
+    void everyVersionRebuildsAcrossCheckpoints() throws SQLException {
+        RevisionStore store = new RevisionStore(4, false);
+        List<String> bodies = recordHistory(store, 1, 13);
+
+        for (int version = 0; version < bodies.size(); version++) {
+            assertEquals(bodies.get(version), store.rebuild(conn, 1, version), "version " + version);
+        }
+        for (Revision revision : store.list(conn, 1)) {
+            assertEquals(revision.getVersion() % 4 == 0, revision.isCheckpoint(), "kind of version " + revision.getVersion());
+        }
+    }
+
+    @Test
+    void verifiedStoreKeepsDeltas() throws SQLException {
+        RevisionStore store = new RevisionStore(4, true);
+        List<String> bodies = recordHistory(store, 2, 9);
+
+        for (int version = 0; version < bodies.size(); version++) {
+            assertEquals(bodies.get(version), store.rebuild(conn, 2, version), "version " + version);
+        }
+        assertTrue(store.list(conn, 2).stream().anyMatch(r -> !r.isCheckpoint()), "deltas were stored");
+    }
+
+    /** Records {@code edits} edits cycling through empty, identical, prepended, multi-byte and rotated bodies. */
+    private List<String> recordHistory(RevisionStore store, int newsId, int edits) throws SQLException {
+        NewsRow row = new NewsRow(newsId, "title", new Timestamp(0), 1, "author");
+        List<String> bodies = new ArrayList<>();
+        String body = PROSE;
+        bodies.add(body);
+        for (int version = 1; version <= edits; version++) {
+            String next;
+            switch (version % 5) {
+                case 0: next = body; break;
+                case 1: next = ""; break;
+                case 2: next = MULTI_BYTE.repeat(10) + body; break;
+                case 3: next = body.substring(0, body.length() / 2) + "😀é" + body.substring(body.length() / 2); break;
+                default: next = body.length() > 40 ? body.substring(17) + body.substring(0, 17) : body + "中文";
+            }
+            store.record(conn, new Article(row, body, version - 1), "title " + version, next);
+            bodies.add(next);
+            body = next;
+        }
+        return bodies;
+    }
+
+    private static String edit(String body, Random random) {
+        int at = body.isEmpty() ? 0 : random.nextInt(body.length());
+        switch (random.nextInt(3)) {
+            case 0: return body.substring(0, at) + MULTI_BYTE.substring(random.nextInt(MULTI_BYTE.length())) + body.substring(at);
+            case 1: return body.substring(0, at) + body.substring(Math.min(body.length(), at + random.nextInt(40)));
+            default: return body.substring(at) + body.substring(0, at);
+        }
+    }
+}
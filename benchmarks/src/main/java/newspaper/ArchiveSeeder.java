@@ -0,0 +1,77 @@
+package newspaper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Fills an empty database with a reproducible archive: the same seed and sizes always
+ * produce the same users, titles, bodies and timestamps, so benchmark runs are comparable.
+ */
+final class ArchiveSeeder {
+
+    static final int AUTHORS = 100;
+    static final long SEED = 42L;
+
+    private static final String[] WORDS = {
+            "election", "council", "budget", "market", "storm", "river", "school", "festival",
+            "minister", "report", "football", "league", "museum", "harbour", "railway", "hospital",
+            "court", "police", "weather", "energy", "housing", "farmers", "science", "theatre",
+            "village", "airport", "strike", "trade", "record", "season", "exhibition", "bridge"};
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2015, 1, 1, 0, 0);
+
+    private ArchiveSeeder() {
+    }
+
+    static String authorName(int authorIndex) {
+        return "author" + authorIndex;
+    }
+
+    static String authorPassword(int authorIndex) {
+        return "password-" + authorIndex;
+    }
+
+    static void seed(NewspaperApp.NewsData model, int articles) throws SQLException {
+        for (int i = 1; i <= AUTHORS; i++) {
+            if (!model.addUser(authorName(i), "", 0, authorPassword(i))) {
+                throw new SQLException("Could not create " + authorName(i));
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        LocalDateTime createdAt = EPOCH;
+        String sql = "INSERT INTO news (Title, Body, Created_at, U_id) VALUES (?, ?, ?, ?)";
+        try (Connection conn = model.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int i = 1; i <= articles; i++) {
+                // Several stories can share a second, which exercises the News_id tiebreak.
+                createdAt = createdAt.plusSeconds(random.nextInt(0, 120));
+                pstmt.setString(1, sentence(random, 4 + random.nextInt(6)));
+                pstmt.setString(2, sentence(random, 60 + random.nextInt(120)));
+                pstmt.setTimestamp(3, Timestamp.valueOf(createdAt));
+                pstmt.setInt(4, 1 + random.nextInt(AUTHORS));
+                pstmt.addBatch();
+                if (i % 1000 == 0) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+    }
+
+    private static String sentence(SplittableRandom random, int words) {
+        StringBuilder sb = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
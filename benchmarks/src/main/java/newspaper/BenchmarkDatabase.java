@@ -0,0 +1,44 @@
+package newspaper;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+
+/**
+ * One seeded in-memory H2 archive per trial. The body cache is disabled so getNewsBody
+ * measures the database path rather than a HashMap lookup. Password hashing uses a low
+ * work factor so seeding the authors stays quick; LoginBenchmark covers the real costs.
+ * The login guard is off, or authenticateUser would measure the rate limiter.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    @Param({"1000", "100000", "1000000"})
+    public int articles;
+
+    NewspaperApp.NewsData model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        System.setProperty("newsdata.bodyCache.maxChars", "0");
+        System.setProperty("newsdata.auth.iterations", "1000");
+        System.setProperty("newsdata.login.guard", "false");
+        String url = "jdbc:h2:mem:bench_" + articles + "_" + System.nanoTime()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+        model = new NewspaperApp.NewsData(NewspaperApp.DbProfile.H2, url, "sa", "");
+        if (!model.testConnection()) {
+            throw new SQLException("Could not initialise benchmark database " + url);
+        }
+        ArchiveSeeder.seed(model, articles);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        model.close();
+    }
+}
@@ -0,0 +1,58 @@
+package newspaper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins per second at each PBKDF2 work factor: a full password verification, and a
+ * repeat login answered by the auth cache. Run with {@code -t <threads>} to see the
+ * hasher's concurrency bound hold throughput flat instead of oversubscribing the CPU.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final String USERNAME = ArchiveSeeder.authorName(1);
+    private static final String PASSWORD = ArchiveSeeder.authorPassword(1);
+
+    @Param({"10000", "100000", "310000", "600000"})
+    public int iterations;
+
+    private NewspaperApp.PasswordHasher hasher;
+    private NewspaperApp.AuthCache cache;
+    private String stored;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hasher = new NewspaperApp.PasswordHasher(iterations, Runtime.getRuntime().availableProcessors());
+        stored = hasher.hash(PASSWORD);
+        cache = new NewspaperApp.AuthCache(TimeUnit.HOURS.toMillis(1), 1024);
+        cache.put(USERNAME, stored, PASSWORD, System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PASSWORD, stored);
+    }
+
+    @Benchmark
+    public boolean cachedLogin() {
+        return cache.matches(USERNAME, stored, PASSWORD, System.nanoTime());
+    }
+}
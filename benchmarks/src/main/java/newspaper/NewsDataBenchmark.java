@@ -0,0 +1,96 @@
+package newspaper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Latency of the individual NewsData operations against a seeded archive. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class NewsDataBenchmark {
+
+    @State(Scope.Thread)
+    public static class Ids {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            random = new SplittableRandom(ArchiveSeeder.SEED);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public long getAllNews(BenchmarkDatabase db, Blackhole bh) throws SQLException {
+        long rows = 0;
+        try (ResultSet rs = db.model.getAllNews()) {
+            while (rs.next()) {
+                bh.consume(rs.getInt(1));
+                bh.consume(rs.getString(2));
+                bh.consume(rs.getTimestamp(3));
+                bh.consume(rs.getString(4));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public long streamFeed(BenchmarkDatabase db, Blackhole bh) throws SQLException, IOException {
+        return db.model.streamFeed(chunk -> {
+            for (NewspaperApp.NewsRow row : chunk) {
+                bh.consume(row);
+            }
+        });
+    }
+
+    @Benchmark
+    public Object getNewsPageFirst(BenchmarkDatabase db) throws SQLException {
+        return db.model.getNewsPage(null, 200);
+    }
+
+    @Benchmark
+    public Object getFeedHeadCached(BenchmarkDatabase db) throws SQLException {
+        return db.model.getFeedHead(200);
+    }
+
+    @Benchmark
+    public String getNewsBody(BenchmarkDatabase db, Ids ids) {
+        return db.model.getNewsBody(1 + ids.random.nextInt(db.articles));
+    }
+
+    @Benchmark
+    public Object addNews(BenchmarkDatabase db, Ids ids) {
+        int author = 1 + ids.random.nextInt(ArchiveSeeder.AUTHORS);
+        return db.model.addNews("Benchmark headline", "Benchmark body text for a freshly filed story.", author);
+    }
+
+    @Benchmark
+    public Object authenticateUser(BenchmarkDatabase db, Ids ids) throws NewspaperApp.LoginBlockedException {
+        int author = 1 + ids.random.nextInt(ArchiveSeeder.AUTHORS);
+        return db.model.authenticateUser(ArchiveSeeder.authorName(author), ArchiveSeeder.authorPassword(author));
+    }
+}
@@ -0,0 +1,48 @@
+package newspaper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of populating the feed table as loadNewsData does: the first page only (what the
+ * app does now), and every page through to the end of the archive (the old full reload).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class TableModelBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+
+    @Benchmark
+    public int firstPage(BenchmarkDatabase db) throws SQLException {
+        NewspaperApp.NewsTableModel tableModel = new NewspaperApp.NewsTableModel(PAGE_SIZE);
+        tableModel.replaceAll(db.model.getNewsPage(null, PAGE_SIZE));
+        return tableModel.getRowCount();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public int fullArchive(BenchmarkDatabase db) throws SQLException {
+        NewspaperApp.NewsTableModel tableModel = new NewspaperApp.NewsTableModel(PAGE_SIZE);
+        tableModel.replaceAll(db.model.getNewsPage(null, PAGE_SIZE));
+        while (tableModel.hasMore()) {
+            List<NewspaperApp.NewsRow> page = db.model.getNewsPage(tableModel.nextCursor(), PAGE_SIZE);
+            tableModel.append(page);
+        }
+        return tableModel.getRowCount();
+    }
+}